@@ -28,15 +28,21 @@ import java.io.IOException;
 
 import butterknife.Bind;
 import butterknife.ButterKnife;
+import worldline.com.foldablelayout.FoldStateStore;
+import worldline.com.foldablelayout.recyclerview.FoldableRecyclerHelper;
 
 public class MainActivity extends AppCompatActivity {
 
+    private static final String KEY_FOLD_STATES = "fold_states";
+
     @Bind(R.id.recycler_view)
     protected RecyclerView mRecyclerView;
 
     @Bind(R.id.toolbar)
     protected Toolbar mToolbar;
 
+    private PhotoAdapter mAdapter;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -50,7 +56,14 @@ public class MainActivity extends AppCompatActivity {
         } catch (IOException e) {
             e.printStackTrace();
         }
-        PhotoAdapter adapter = new PhotoAdapter(dataSet, this);
+        FoldStateStore foldStates = null;
+        if (savedInstanceState != null) {
+            foldStates = savedInstanceState.getParcelable(KEY_FOLD_STATES);
+        }
+        if (foldStates == null) {
+            foldStates = new FoldStateStore();
+        }
+        mAdapter = new PhotoAdapter(dataSet, foldStates, this);
         mRecyclerView.setLayoutManager(new LinearLayoutManager(this));
         mRecyclerView.addItemDecoration(new RecyclerView.ItemDecoration() {
             @Override
@@ -59,6 +72,14 @@ public class MainActivity extends AppCompatActivity {
                 outRect.bottom = getResources().getDimensionPixelSize(R.dimen.activity_vertical_margin);
             }
         });
-        mRecyclerView.setAdapter(adapter);
+        mRecyclerView.setAdapter(mAdapter);
+        // Releases the snapshots of the recycled items, and ends their folds when they scroll away.
+        new FoldableRecyclerHelper().attachToRecyclerView(mRecyclerView);
+    }
+
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putParcelable(KEY_FOLD_STATES, mAdapter.getFoldStates());
     }
 }
@@ -27,15 +27,16 @@ import android.widget.Button;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import com.squareup.picasso.Callback;
 import com.squareup.picasso.Picasso;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
 
 import butterknife.Bind;
 import butterknife.ButterKnife;
+import worldline.com.foldablelayout.FoldStateStore;
 import worldline.com.foldablelayout.FoldableLayout;
+import worldline.com.foldablelayout.recyclerview.FoldableViewHolder;
 
 /**
  * TODO: Add a class header comment!
@@ -43,95 +44,42 @@ import worldline.com.foldablelayout.FoldableLayout;
 public class PhotoAdapter extends RecyclerView.Adapter<PhotoAdapter.PhotoViewHolder> {
 
     private String[] mDataSet;
-    private Map<Integer, Boolean> mFoldStates = new HashMap<>();
+    private FoldStateStore mFoldStates;
     private Context mContext;
 
-    public PhotoAdapter(String[] dataSet, Context context) {
+    public PhotoAdapter(String[] dataSet, FoldStateStore foldStates, Context context) {
         mDataSet = dataSet;
+        mFoldStates = foldStates;
         mContext = context;
+        setHasStableIds(true);
+    }
+
+    public FoldStateStore getFoldStates() {
+        return mFoldStates;
     }
 
     @Override
     public PhotoViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
-        return new PhotoViewHolder(new FoldableLayout(parent.getContext()));
+        return new PhotoViewHolder(new FoldableLayout(parent.getContext()), mFoldStates, mContext);
     }
 
     @Override
-    public void onBindViewHolder(final PhotoViewHolder holder, int position) {
-        final String path = "content://worldline.com.foldablelayout.demo/demo-pictures/" + mDataSet[position];
+    public void onBindViewHolder(PhotoViewHolder holder, int position) {
+        holder.mPath = "content://worldline.com.foldablelayout.demo/demo-pictures/" + mDataSet[position];
 
         // Bind data
-        Picasso.with(holder.mFoldableLayout.getContext()).load(path).into(holder.mImageViewCover);
-        Picasso.with(holder.mFoldableLayout.getContext()).load(path).into(holder.mImageViewDetail);
+        Picasso.with(holder.mFoldableLayout.getContext()).load(holder.mPath).into(holder.mImageViewCover);
+        Picasso.with(holder.mFoldableLayout.getContext()).load(holder.mPath).into(holder.mImageViewDetail, holder.mDetailCallback);
         holder.mTextViewCover.setText(mDataSet[position].replace(".jpg", ""));
 
         // Bind state
-        if (mFoldStates.containsKey(position)) {
-            if (mFoldStates.get(position) == Boolean.TRUE) {
-                if (!holder.mFoldableLayout.isFolded()) {
-                    holder.mFoldableLayout.foldWithoutAnimation();
-                }
-            } else if (mFoldStates.get(position) == Boolean.FALSE) {
-                if (holder.mFoldableLayout.isFolded()) {
-                    holder.mFoldableLayout.unfoldWithoutAnimation();
-                }
-            }
-        } else {
-            holder.mFoldableLayout.foldWithoutAnimation();
-        }
-
-        holder.mButtonShare.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                Intent shareIntent = new Intent(Intent.ACTION_SEND);
-                shareIntent.setType("image/jpg");
-                Uri uri = Uri.parse(path);
-                shareIntent.putExtra(Intent.EXTRA_STREAM, uri);
-                mContext.startActivity(Intent.createChooser(shareIntent, "Share image using"));
-            }
-        });
-
-        holder.mFoldableLayout.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View v) {
-                if (holder.mFoldableLayout.isFolded()) {
-                    holder.mFoldableLayout.unfoldWithAnimation();
-                } else {
-                    holder.mFoldableLayout.foldWithAnimation();
-                }
-            }
-        });
-        holder.mFoldableLayout.setFoldListener(new FoldableLayout.FoldListener() {
-            @Override
-            public void onUnFoldStart() {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                    holder.mFoldableLayout.setElevation(5);
-                }
-            }
-
-            @Override
-            public void onUnFoldEnd() {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                    holder.mFoldableLayout.setElevation(0);
-                }
-                mFoldStates.put(holder.getAdapterPosition(), false);
-            }
-
-            @Override
-            public void onFoldStart() {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                    holder.mFoldableLayout.setElevation(5);
-                }
-            }
+        holder.bindFoldState();
+    }
 
-            @Override
-            public void onFoldEnd() {
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                    holder.mFoldableLayout.setElevation(0);
-                }
-                mFoldStates.put(holder.getAdapterPosition(), true);
-            }
-        });
+    @Override
+    public long getItemId(int position) {
+        // The data set never changes, positions are stable.
+        return position;
     }
 
     @Override
@@ -139,9 +87,10 @@ public class PhotoAdapter extends RecyclerView.Adapter<PhotoAdapter.PhotoViewHol
         return mDataSet.length;
     }
 
-    protected static class PhotoViewHolder extends RecyclerView.ViewHolder {
-
-        protected FoldableLayout mFoldableLayout;
+    /**
+     * Holder of a photo. Its listeners are created once, and read the photo currently bound.
+     */
+    protected static class PhotoViewHolder extends FoldableViewHolder {
 
         @Bind(R.id.imageview_cover)
         protected ImageView mImageViewCover;
@@ -155,11 +104,71 @@ public class PhotoAdapter extends RecyclerView.Adapter<PhotoAdapter.PhotoViewHol
         @Bind(R.id.share_button)
         protected Button mButtonShare;
 
-        public PhotoViewHolder(FoldableLayout foldableLayout) {
-            super(foldableLayout);
-            mFoldableLayout = foldableLayout;
+        protected String mPath;
+
+        protected final Callback mDetailCallback = new Callback() {
+            @Override
+            public void onSuccess() {
+                mFoldableLayout.invalidateSnapshot(mImageViewDetail);
+            }
+
+            @Override
+            public void onError() {
+
+            }
+        };
+
+        public PhotoViewHolder(FoldableLayout foldableLayout, FoldStateStore foldStates, final Context context) {
+            super(foldableLayout, foldStates);
             foldableLayout.setupViews(R.layout.list_item_cover, R.layout.list_item_detail, R.dimen.card_cover_height, itemView.getContext());
+            foldableLayout.setPrefetchEnabled(true);
             ButterKnife.bind(this, foldableLayout);
+            mButtonShare.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    Intent shareIntent = new Intent(Intent.ACTION_SEND);
+                    shareIntent.setType("image/jpg");
+                    Uri uri = Uri.parse(mPath);
+                    shareIntent.putExtra(Intent.EXTRA_STREAM, uri);
+                    context.startActivity(Intent.createChooser(shareIntent, "Share image using"));
+                }
+            });
+            foldableLayout.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View v) {
+                    mFoldableLayout.toggleWithAnimation();
+                }
+            });
+        }
+
+        @Override
+        public void onUnFoldStart() {
+            super.onUnFoldStart();
+            setElevation(5);
+        }
+
+        @Override
+        public void onUnFoldEnd() {
+            super.onUnFoldEnd();
+            setElevation(0);
+        }
+
+        @Override
+        public void onFoldStart() {
+            super.onFoldStart();
+            setElevation(5);
+        }
+
+        @Override
+        public void onFoldEnd() {
+            super.onFoldEnd();
+            setElevation(0);
+        }
+
+        private void setElevation(float elevation) {
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                mFoldableLayout.setElevation(elevation);
+            }
         }
     }
 }
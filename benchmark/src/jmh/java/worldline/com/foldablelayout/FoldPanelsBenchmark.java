@@ -0,0 +1,80 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the panel geometry computed for each frame of a fold, for several detail view heights
+ * and panel counts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FoldPanelsBenchmark {
+
+    private static final int FRAME_COUNT = 60;
+
+    @Param({"640", "1280", "2560"})
+    public int detailHeight;
+
+    @Param({"2", "3", "5"})
+    public int panelCount;
+
+    private FoldPanels mPanels;
+    private int mFrame;
+
+    @Setup
+    public void setUp() {
+        int[] sizes = new int[panelCount];
+        for (int i = 0; i < panelCount; i++) {
+            sizes[i] = detailHeight / panelCount;
+        }
+        mPanels = new FoldPanels(sizes);
+    }
+
+    /**
+     * One frame of a fold: the stage, its progress and the height of the layout.
+     */
+    @Benchmark
+    public void frame(Blackhole blackhole) {
+        float progress = (float) mFrame / FRAME_COUNT;
+        mFrame = (mFrame + 1) % (FRAME_COUNT + 1);
+        int stage = mPanels.getStage(progress);
+        blackhole.consume(mPanels.getStageProgress(progress, stage));
+        blackhole.consume(mPanels.getSizeAt(progress));
+    }
+
+    /**
+     * Setting the panels, as done when the layout is set up or its panels change.
+     */
+    @Benchmark
+    public FoldPanels setSizes() {
+        mPanels.setSizes(detailHeight / 2, detailHeight - detailHeight / 2);
+        return mPanels;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of setting up the sides of the snapshot when a fold reaches a new panel: the regions of
+ * the three drawables, then their bounds once the image views are laid out. Drawing them needs a
+ * native canvas and is measured on a device by SnapshotBenchmarkTest.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SnapshotDrawableBenchmark {
+
+    private static final int WIDTH = 1080;
+
+    @Param({"640", "1280", "2560"})
+    public int detailHeight;
+
+    @Param({"2", "3", "5"})
+    public int panelCount;
+
+    private final SnapshotDrawable mTopDrawable = new SnapshotDrawable();
+    private final SnapshotDrawable mFrontDrawable = new SnapshotDrawable();
+    private final SnapshotDrawable mRotatedDrawable = new SnapshotDrawable();
+    private FoldPanels mPanels;
+    private int mStage;
+
+    @Setup
+    public void setUp() {
+        int[] sizes = new int[panelCount];
+        for (int i = 0; i < panelCount; i++) {
+            sizes[i] = detailHeight / panelCount;
+        }
+        mPanels = new FoldPanels(sizes);
+        mRotatedDrawable.setFlipped(true);
+        mStage = 1;
+    }
+
+    /**
+     * One stage change, cycling through the panels.
+     */
+    @Benchmark
+    public void showStage(Blackhole blackhole) {
+        int revealedOffset = mPanels.getOffset(mStage - 1);
+        int stageOffset = mPanels.getOffset(mStage);
+        int nextOffset = mPanels.getOffset(mStage + 1);
+        mStage = mStage % (panelCount - 1) + 1;
+        mTopDrawable.setSourceRect(0, 0, WIDTH, stageOffset);
+        mFrontDrawable.setSourceRect(0, revealedOffset, WIDTH, stageOffset);
+        mRotatedDrawable.setSourceRect(0, stageOffset, WIDTH, nextOffset);
+        setBounds(mTopDrawable);
+        setBounds(mFrontDrawable);
+        setBounds(mRotatedDrawable);
+        blackhole.consume(mTopDrawable.getBounds());
+        blackhole.consume(mFrontDrawable.getBounds());
+        blackhole.consume(mRotatedDrawable.getBounds());
+    }
+
+    private static void setBounds(SnapshotDrawable drawable) {
+        drawable.setBounds(0, 0, drawable.getIntrinsicWidth(), drawable.getIntrinsicHeight());
+    }
+}
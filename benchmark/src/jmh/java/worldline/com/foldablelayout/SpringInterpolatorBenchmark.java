@@ -0,0 +1,72 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the spring driving a fold, per frame and per animation start, for underdamped,
+ * critically damped and overdamped springs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class SpringInterpolatorBenchmark {
+
+    private static final int FRAME_COUNT = 60;
+
+    @Param({"0.3", "1", "2"})
+    public float dampingRatio;
+
+    @Param({"200", "800"})
+    public float stiffness;
+
+    private SpringInterpolator mInterpolator;
+    private int mFrame;
+
+    @Setup
+    public void setUp() {
+        mInterpolator = new SpringInterpolator(stiffness, dampingRatio);
+    }
+
+    /**
+     * One frame of an animation driven by the spring.
+     */
+    @Benchmark
+    public float interpolation() {
+        float input = (float) mFrame / FRAME_COUNT;
+        mFrame = (mFrame + 1) % (FRAME_COUNT + 1);
+        return mInterpolator.getInterpolation(input);
+    }
+
+    /**
+     * Creating the spring and computing the duration of its animation.
+     */
+    @Benchmark
+    public long duration() {
+        return new SpringInterpolator(stiffness, dampingRatio).getDuration();
+    }
+}
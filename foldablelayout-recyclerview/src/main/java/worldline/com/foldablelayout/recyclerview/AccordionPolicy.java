@@ -0,0 +1,100 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout.recyclerview;
+
+import android.graphics.Rect;
+import android.support.v7.widget.RecyclerView;
+
+import worldline.com.foldablelayout.FoldStateStore;
+import worldline.com.foldablelayout.FoldableLayout;
+
+/**
+ * Keeps at most one item of a {@link RecyclerView} unfolded: when an item starts to unfold, the
+ * previously unfolded item is folded. It is animated only if it is visible, otherwise it is folded
+ * without animation, or only in the {@link FoldStateStore} if it is not bound, so that no snapshot
+ * is captured for a layout nobody sees. At most two folds run at once, hence two snapshots: the
+ * item unfolding and the one folding for it.
+ * The policy is given to the {@link FoldableViewHolder} of the adapter.
+ */
+public class AccordionPolicy {
+
+    private final RecyclerView mRecyclerView;
+    private final FoldStateStore mFoldStates;
+    private final Rect mVisibleRect = new Rect();
+    private long mUnfoldedId = RecyclerView.NO_ID;
+    private FoldableLayout mFoldingLayout;
+
+    /**
+     * Basic constructor. If several items are unfolded in the store, only the last one stays unfolded.
+     *
+     * @param recyclerView is the recycler view displaying the items.
+     * @param foldStates   is the store of the fold states of the items, shared with the holders.
+     */
+    public AccordionPolicy(RecyclerView recyclerView, FoldStateStore foldStates) {
+        mRecyclerView = recyclerView;
+        mFoldStates = foldStates;
+        while (foldStates.getUnfoldedCount() > 1) {
+            foldStates.setFolded(foldStates.getUnfoldedId(0), true);
+        }
+        if (foldStates.getUnfoldedCount() == 1) {
+            mUnfoldedId = foldStates.getUnfoldedId(0);
+        }
+    }
+
+    /**
+     * @return the stable id of the unfolded item, or {@link RecyclerView#NO_ID} if all are folded.
+     */
+    public long getUnfoldedId() {
+        return mUnfoldedId;
+    }
+
+    void onUnfoldStart(FoldableViewHolder holder) {
+        long id = holder.getItemId();
+        // A fold still running for an older item is ended, releasing its snapshot.
+        if (mFoldingLayout != null && mFoldingLayout != holder.getFoldableLayout() && mFoldingLayout.isAnimating()) {
+            mFoldingLayout.endAnimation();
+        }
+        mFoldingLayout = null;
+        if (mUnfoldedId != RecyclerView.NO_ID && mUnfoldedId != id) {
+            fold(mUnfoldedId);
+        }
+        mUnfoldedId = id;
+    }
+
+    void onFoldEnd(FoldableViewHolder holder) {
+        if (holder.getItemId() == mUnfoldedId) {
+            mUnfoldedId = RecyclerView.NO_ID;
+        }
+    }
+
+    private void fold(long id) {
+        mFoldStates.setFolded(id, true);
+        RecyclerView.ViewHolder holder = mRecyclerView.findViewHolderForItemId(id);
+        if (!(holder instanceof FoldableViewHolder)) {
+            // Not bound, the item is folded when it is bound again.
+            return;
+        }
+        FoldableLayout foldableLayout = ((FoldableViewHolder) holder).getFoldableLayout();
+        if (foldableLayout.isShown() && foldableLayout.getGlobalVisibleRect(mVisibleRect)) {
+            foldableLayout.foldWithAnimation();
+            mFoldingLayout = foldableLayout;
+        } else {
+            foldableLayout.endAnimation();
+            foldableLayout.foldWithoutAnimation();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout.recyclerview;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import worldline.com.foldablelayout.FoldableLayout;
+
+/**
+ * Ties the lifecycle of the {@link FoldableLayout} items of a {@link RecyclerView} to their
+ * holders: a fold running when its item is detached is ended, and the snapshot of an item is
+ * released when its holder is recycled, so that recycled layouts hold no memory.
+ * Items are found through {@link FoldableViewHolder} or as item views being {@link FoldableLayout}.
+ */
+public class FoldableRecyclerHelper implements RecyclerView.RecyclerListener, RecyclerView.OnChildAttachStateChangeListener {
+
+    private RecyclerView mRecyclerView;
+
+    /**
+     * Attach the helper to a recycler view. It replaces the {@link RecyclerView.RecyclerListener}
+     * of the recycler view, a listener already set should forward to {@link #onViewRecycled(RecyclerView.ViewHolder)}
+     * instead of calling this method, and call {@link RecyclerView#addOnChildAttachStateChangeListener(RecyclerView.OnChildAttachStateChangeListener)}.
+     *
+     * @param recyclerView is the recycler view displaying the layouts.
+     */
+    public void attachToRecyclerView(RecyclerView recyclerView) {
+        if (mRecyclerView == recyclerView) {
+            return;
+        }
+        if (mRecyclerView != null) {
+            detachFromRecyclerView();
+        }
+        mRecyclerView = recyclerView;
+        if (recyclerView != null) {
+            recyclerView.setRecyclerListener(this);
+            recyclerView.addOnChildAttachStateChangeListener(this);
+        }
+    }
+
+    /**
+     * Detach the helper from its recycler view, if any.
+     */
+    public void detachFromRecyclerView() {
+        if (mRecyclerView != null) {
+            mRecyclerView.setRecyclerListener(null);
+            mRecyclerView.removeOnChildAttachStateChangeListener(this);
+            mRecyclerView = null;
+        }
+    }
+
+    @Override
+    public void onViewRecycled(RecyclerView.ViewHolder holder) {
+        FoldableLayout foldableLayout = getFoldableLayout(holder);
+        if (foldableLayout != null) {
+            foldableLayout.recycle();
+        }
+    }
+
+    @Override
+    public void onChildViewAttachedToWindow(View view) {
+
+    }
+
+    @Override
+    public void onChildViewDetachedFromWindow(View view) {
+        if (mRecyclerView == null) {
+            return;
+        }
+        FoldableLayout foldableLayout = getFoldableLayout(mRecyclerView.getChildViewHolder(view));
+        if (foldableLayout != null && foldableLayout.isAnimating()) {
+            // The fold lands in its final state, which the holder keeps for the next bind.
+            foldableLayout.endAnimation();
+        }
+    }
+
+    private static FoldableLayout getFoldableLayout(RecyclerView.ViewHolder holder) {
+        if (holder instanceof FoldableViewHolder) {
+            return ((FoldableViewHolder) holder).getFoldableLayout();
+        } else if (holder != null && holder.itemView instanceof FoldableLayout) {
+            return (FoldableLayout) holder.itemView;
+        }
+        return null;
+    }
+}
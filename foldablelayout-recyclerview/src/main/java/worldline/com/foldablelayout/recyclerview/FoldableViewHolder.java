@@ -0,0 +1,97 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout.recyclerview;
+
+import android.support.v7.widget.RecyclerView;
+
+import worldline.com.foldablelayout.FoldStateStore;
+import worldline.com.foldablelayout.FoldableLayout;
+
+/**
+ * View holder of a {@link FoldableLayout}, keeping the fold state of its item in a
+ * {@link FoldStateStore}. The holder is the only fold listener of its layout, registered once
+ * when it is created, so binding an item allocates nothing. The adapter must have stable ids.
+ */
+public class FoldableViewHolder extends RecyclerView.ViewHolder implements FoldableLayout.FoldListener {
+
+    protected final FoldableLayout mFoldableLayout;
+    private final FoldStateStore mFoldStates;
+    private final AccordionPolicy mAccordionPolicy;
+
+    /**
+     * Basic constructor.
+     *
+     * @param foldableLayout is the item view.
+     * @param foldStates     is the store of the fold states, shared by all the holders of the adapter.
+     */
+    public FoldableViewHolder(FoldableLayout foldableLayout, FoldStateStore foldStates) {
+        this(foldableLayout, foldStates, null);
+    }
+
+    /**
+     * Constructor of a holder whose item folds the other items when it unfolds.
+     *
+     * @param foldableLayout  is the item view.
+     * @param foldStates      is the store of the fold states, shared by all the holders of the adapter.
+     * @param accordionPolicy is the policy keeping one item unfolded, shared by all the holders of the adapter.
+     */
+    public FoldableViewHolder(FoldableLayout foldableLayout, FoldStateStore foldStates, AccordionPolicy accordionPolicy) {
+        super(foldableLayout);
+        mFoldableLayout = foldableLayout;
+        mFoldStates = foldStates;
+        mAccordionPolicy = accordionPolicy;
+        foldableLayout.setFoldListener(this);
+    }
+
+    public FoldableLayout getFoldableLayout() {
+        return mFoldableLayout;
+    }
+
+    /**
+     * Set the layout in the stored state of the item, without animation. To be called from
+     * {@link RecyclerView.Adapter#onBindViewHolder(RecyclerView.ViewHolder, int)}.
+     */
+    public void bindFoldState() {
+        mFoldableLayout.invalidateSnapshot();
+        mFoldStates.apply(getItemId(), mFoldableLayout);
+    }
+
+    @Override
+    public void onUnFoldStart() {
+        if (mAccordionPolicy != null) {
+            mAccordionPolicy.onUnfoldStart(this);
+        }
+    }
+
+    @Override
+    public void onUnFoldEnd() {
+        mFoldStates.setFolded(getItemId(), false);
+    }
+
+    @Override
+    public void onFoldStart() {
+
+    }
+
+    @Override
+    public void onFoldEnd() {
+        mFoldStates.setFolded(getItemId(), true);
+        if (mAccordionPolicy != null) {
+            mAccordionPolicy.onFoldEnd(this);
+        }
+    }
+}
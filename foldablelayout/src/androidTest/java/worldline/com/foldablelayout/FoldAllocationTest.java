@@ -0,0 +1,149 @@
+package worldline.com.foldablelayout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.test.InstrumentationTestCase;
+
+import static worldline.com.foldablelayout.FoldTestLayouts.COVER_HEIGHT;
+import static worldline.com.foldablelayout.FoldTestLayouts.WIDTH;
+import static worldline.com.foldablelayout.FoldTestLayouts.createLayout;
+import static worldline.com.foldablelayout.FoldTestLayouts.layout;
+
+/**
+ * Steps animated folds frame by frame through their animator, on a layout which is not attached to
+ * any window, and fails if a frame allocates once the fold is started. Each frame updates the fold
+ * from the animator, and draws the sides of the snapshot. The layout pass is not counted, it
+ * belongs to the framework.
+ * <p/>
+ * The folds run on the main thread, which holds the animators, and is kept busy for the whole fold
+ * so that only the stepped frames move it.
+ */
+@SuppressWarnings("deprecation")
+public class FoldAllocationTest extends InstrumentationTestCase {
+
+    private static final long DURATION = 600;
+    private static final long FRAME_INTERVAL = 16;
+
+    private final FoldProgressListener mProgressListener = new FoldProgressListener() {
+        @Override
+        public void onFoldProgress(FoldableLayout foldableLayout, float progress, boolean unfolding) {
+            mLastProgress = progress;
+        }
+    };
+
+    private FoldableLayout mLayout;
+    private Canvas mCanvas;
+    private float mLastProgress;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        mCanvas = new Canvas(Bitmap.createBitmap(WIDTH, COVER_HEIGHT * 3, Bitmap.Config.ARGB_8888));
+        Debug.startAllocCounting();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Debug.stopAllocCounting();
+        super.tearDown();
+    }
+
+    public void testVertical_framesDoNotAllocate() throws Exception {
+        setupLayout(FoldableLayout.ORIENTATION_VERTICAL, 2);
+        assertFoldsDoNotAllocate();
+    }
+
+    public void testHorizontal_framesDoNotAllocate() throws Exception {
+        setupLayout(FoldableLayout.ORIENTATION_HORIZONTAL, 2);
+        assertFoldsDoNotAllocate();
+    }
+
+    public void testThreePanels_framesDoNotAllocate() throws Exception {
+        setupLayout(FoldableLayout.ORIENTATION_VERTICAL, 3);
+        assertFoldsDoNotAllocate();
+    }
+
+    public void testProgressListener_framesDoNotAllocate() throws Exception {
+        setupLayout(FoldableLayout.ORIENTATION_VERTICAL, 2);
+        mLayout.addFoldProgressListener(mProgressListener);
+        assertFoldsDoNotAllocate();
+        assertEquals(0f, mLastProgress);
+    }
+
+    private void setupLayout(int orientation, int panelCount) {
+        mLayout = createLayout(getInstrumentation().getTargetContext(), orientation, panelCount);
+        mLayout.setAnimationDuration(DURATION);
+    }
+
+    /**
+     * Unfold then fold the layout once to warm it up, then again while counting the allocations of
+     * each frame after the one which starts the animator and captures the detail view.
+     */
+    private void assertFoldsDoNotAllocate() {
+        runFold(true, null);
+        runFold(false, null);
+        int[] unfoldAllocations = new int[frameCount()];
+        int[] foldAllocations = new int[frameCount()];
+        runFold(true, unfoldAllocations);
+        runFold(false, foldAllocations);
+        assertNoAllocation("unfold", unfoldAllocations);
+        assertNoAllocation("fold", foldAllocations);
+    }
+
+    private void runFold(final boolean unfold, final int[] allocations) {
+        // The animator runs on the main thread, which is also where the allocations are counted.
+        getInstrumentation().runOnMainSync(new Runnable() {
+            @Override
+            public void run() {
+                stepFold(unfold, allocations);
+            }
+        });
+        assertFalse(mLayout.isAnimating());
+        assertEquals(!unfold, mLayout.isFolded());
+    }
+
+    private void stepFold(boolean unfold, int[] allocations) {
+        if (unfold) {
+            mLayout.unfoldWithAnimation();
+        } else {
+            mLayout.foldWithAnimation();
+        }
+        layout(mLayout);
+        for (int frame = 1; frame < frameCount(); frame++) {
+            if (allocations != null) {
+                Debug.resetThreadAllocCount();
+            }
+            mLayout.getAnimator().setCurrentPlayTime(frame * FRAME_INTERVAL);
+            drawSides();
+            if (allocations != null) {
+                allocations[frame] = Debug.getThreadAllocCount();
+            }
+            layout(mLayout);
+        }
+        mLayout.endAnimation();
+        layout(mLayout);
+    }
+
+    private static int frameCount() {
+        return (int) (DURATION / FRAME_INTERVAL);
+    }
+
+    private void drawSides() {
+        mLayout.mImageViewBelow.draw(mCanvas);
+        mLayout.mImageViewAbove.draw(mCanvas);
+        mLayout.mImageViewAboveFront.draw(mCanvas);
+        mLayout.mImageViewBelowShadow.draw(mCanvas);
+        mLayout.mImageViewAboveShadow.draw(mCanvas);
+    }
+
+    private static void assertNoAllocation(String name, int[] allocations) {
+        StringBuilder failures = new StringBuilder();
+        for (int frame = 0; frame < allocations.length; frame++) {
+            if (allocations[frame] > 0) {
+                failures.append(" frame ").append(frame).append(": ").append(allocations[frame]);
+            }
+        }
+        assertTrue(name + " allocated objects on" + failures, failures.length() == 0);
+    }
+}
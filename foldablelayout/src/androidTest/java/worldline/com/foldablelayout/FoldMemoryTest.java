@@ -0,0 +1,40 @@
+package worldline.com.foldablelayout;
+
+import android.graphics.Bitmap;
+import android.test.AndroidTestCase;
+import android.util.Log;
+
+import static worldline.com.foldablelayout.FoldTestLayouts.COVER_HEIGHT;
+import static worldline.com.foldablelayout.FoldTestLayouts.WIDTH;
+import static worldline.com.foldablelayout.FoldTestLayouts.createLayout;
+
+/**
+ * Bounds the pixel buffers allocated by the folds of a layout to a single snapshot of its detail
+ * view, reused by the following folds. The historical pipeline kept five buffers alive at the peak
+ * of each fold: the drawing cache, its copy, the two halves of the copy and the mirrored bottom one.
+ */
+public class FoldMemoryTest extends AndroidTestCase {
+
+    private static final String TAG = "FoldMemoryTest";
+
+    public void testFold_allocatesOneSnapshot() throws Exception {
+        BitmapPool bitmapPool = new BitmapPool(BitmapPool.getDefault().getMaxSize());
+        FoldableLayout layout = createLayout(getContext(), FoldableLayout.ORIENTATION_VERTICAL, 2);
+        layout.setBitmapPool(bitmapPool);
+        layout.setSnapshotStrategy(new BitmapSnapshotStrategy(Bitmap.Config.ARGB_8888, 1));
+        runFold(layout, true);
+        long firstFold = bitmapPool.getAllocatedByteCount();
+        runFold(layout, false);
+        long secondFold = bitmapPool.getAllocatedByteCount() - firstFold;
+
+        Log.i(TAG, "Bytes allocated: " + firstFold + " by the first fold, " + secondFold + " by the second one");
+        assertEquals(WIDTH * COVER_HEIGHT * 2 * 4, firstFold);
+        assertEquals(0, secondFold);
+    }
+
+    private static void runFold(FoldableLayout layout, boolean unfold) {
+        layout.setFoldFraction(unfold ? 0.25f : 0.75f);
+        layout.setFoldFraction(unfold ? 0.75f : 0.25f);
+        layout.setFoldFraction(unfold ? 1 : 0);
+    }
+}
@@ -0,0 +1,61 @@
+package worldline.com.foldablelayout;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.view.View;
+import android.view.ViewGroup;
+
+/**
+ * Layouts shared by the tests: a foldable layout of a fixed width with a plain cover and detail
+ * view, and views laid out without any window.
+ */
+final class FoldTestLayouts {
+
+    static final int WIDTH = 480;
+    static final int COVER_HEIGHT = 160;
+
+    private FoldTestLayouts() {
+    }
+
+    /**
+     * @param orientation is the orientation of the fold, the layout being turned when horizontal.
+     * @param panelCount  is the number of panels of the detail view, each as large as the cover.
+     * @return a folded layout, laid out.
+     */
+    static FoldableLayout createLayout(Context context, int orientation, int panelCount) {
+        boolean horizontal = orientation == FoldableLayout.ORIENTATION_HORIZONTAL;
+        FoldableLayout layout = new FoldableLayout(context);
+        layout.setOrientation(orientation);
+        layout.setLayoutParams(horizontal ? new ViewGroup.LayoutParams(COVER_HEIGHT, WIDTH)
+                : new ViewGroup.LayoutParams(WIDTH, COVER_HEIGHT));
+        View cover = horizontal ? createView(context, COVER_HEIGHT, WIDTH, Color.RED)
+                : createView(context, WIDTH, COVER_HEIGHT, Color.RED);
+        View detail = horizontal ? createView(context, COVER_HEIGHT * panelCount, WIDTH, Color.BLUE)
+                : createView(context, WIDTH, COVER_HEIGHT * panelCount, Color.BLUE);
+        layout.setupViews(cover, detail, COVER_HEIGHT);
+        layout.setPanelCount(panelCount);
+        layout(layout);
+        return layout;
+    }
+
+    /**
+     * @return a view filled with a color, laid out at the given size.
+     */
+    static View createView(Context context, int width, int height, int color) {
+        View view = new View(context);
+        view.setBackgroundColor(color);
+        view.setLayoutParams(new ViewGroup.LayoutParams(width, height));
+        layout(view);
+        return view;
+    }
+
+    /**
+     * Measure and lay out the view at the size of its layout params, as its parent would.
+     */
+    static void layout(View view) {
+        ViewGroup.LayoutParams layoutParams = view.getLayoutParams();
+        view.measure(View.MeasureSpec.makeMeasureSpec(layoutParams.width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(layoutParams.height, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, view.getMeasuredWidth(), view.getMeasuredHeight());
+    }
+}
@@ -0,0 +1,156 @@
+package worldline.com.foldablelayout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.GradientDrawable;
+import android.os.Debug;
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.view.View;
+
+/**
+ * Benchmarks of the snapshot pipeline on the device graphics: capturing the detail view, drawing
+ * the three sides of a stage from the snapshot, and drawing the mirrored side alone. The results
+ * are logged, the headless benchmarks being the JMH ones of the benchmark module.
+ */
+@SuppressWarnings("deprecation")
+public class SnapshotBenchmarkTest extends AndroidTestCase {
+
+    private static final String TAG = "SnapshotBenchmarkTest";
+
+    private static final int[][] DETAIL_SIZES = {
+            {360, 640},
+            {720, 1280},
+            {1080, 1920}
+    };
+
+    private static final int WARMUP_COUNT = 10;
+    private static final int MEASURE_COUNT = 50;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        Debug.startAllocCounting();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Debug.stopAllocCounting();
+        super.tearDown();
+    }
+
+    public void testCapture_drawingCache() throws Exception {
+        for (int[] size : DETAIL_SIZES) {
+            measureCapture("capture/drawingCache", new DrawingCacheSnapshotStrategy(), size[0], size[1]);
+        }
+    }
+
+    public void testCapture_picture() throws Exception {
+        for (int[] size : DETAIL_SIZES) {
+            measureCapture("capture/picture", new PictureSnapshotStrategy(), size[0], size[1]);
+        }
+    }
+
+    public void testCapture_bitmap() throws Exception {
+        for (int[] size : DETAIL_SIZES) {
+            measureCapture("capture/bitmap", new BitmapSnapshotStrategy(Bitmap.Config.ARGB_8888, 1), size[0], size[1]);
+        }
+    }
+
+    public void testSplit_drawThreeSides() throws Exception {
+        for (int[] size : DETAIL_SIZES) {
+            final int width = size[0];
+            final int height = size[1];
+            final int half = height / 2;
+            Snapshot snapshot = createSnapshot(width, height);
+            final SnapshotDrawable top = createSide(snapshot, false);
+            final SnapshotDrawable front = createSide(snapshot, false);
+            final SnapshotDrawable rotated = createSide(snapshot, true);
+            final Canvas canvas = new Canvas(Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888));
+            measure("split/threeSides", width, height, new Runnable() {
+                @Override
+                public void run() {
+                    // What a frame of the first stage renders: the still top half, the cover side
+                    // and the mirrored bottom half.
+                    top.setSourceRect(0, 0, width, half);
+                    front.setSourceRect(0, 0, width, half);
+                    rotated.setSourceRect(0, half, width, height);
+                    top.draw(canvas);
+                    front.draw(canvas);
+                    rotated.draw(canvas);
+                }
+            });
+            snapshot.release();
+        }
+    }
+
+    public void testDraw_flippedSide() throws Exception {
+        for (int[] size : DETAIL_SIZES) {
+            int width = size[0];
+            int height = size[1];
+            Snapshot snapshot = createSnapshot(width, height);
+            final SnapshotDrawable rotated = createSide(snapshot, true);
+            rotated.setSourceRect(0, height / 2, width, height);
+            final Canvas canvas = new Canvas(Bitmap.createBitmap(width, height / 2, Bitmap.Config.ARGB_8888));
+            measure("draw/flipped", width, height, new Runnable() {
+                @Override
+                public void run() {
+                    rotated.draw(canvas);
+                }
+            });
+            snapshot.release();
+        }
+    }
+
+    private void measureCapture(String name, final SnapshotStrategy strategy, int width, int height) {
+        final View detail = createDetailView(width, height);
+        final BitmapPool bitmapPool = new BitmapPool(BitmapPool.getDefault().getMaxSize());
+        measure(name, width, height, new Runnable() {
+            @Override
+            public void run() {
+                strategy.capture(detail, bitmapPool).release();
+            }
+        });
+    }
+
+    private View createDetailView(int width, int height) {
+        View detail = new View(getContext());
+        detail.setBackgroundDrawable(new GradientDrawable(GradientDrawable.Orientation.TL_BR,
+                new int[]{Color.rgb(230, 80, 20), Color.rgb(20, 120, 200)}));
+        detail.measure(View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(height, View.MeasureSpec.EXACTLY));
+        detail.layout(0, 0, width, height);
+        return detail;
+    }
+
+    private Snapshot createSnapshot(int width, int height) {
+        return new BitmapSnapshotStrategy(Bitmap.Config.ARGB_8888, 1).capture(createDetailView(width, height), new BitmapPool(0));
+    }
+
+    private static SnapshotDrawable createSide(Snapshot snapshot, boolean flipped) {
+        SnapshotDrawable side = new SnapshotDrawable();
+        side.setSnapshot(snapshot);
+        side.setFlipped(flipped);
+        side.setBounds(0, 0, snapshot.getWidth(), snapshot.getHeight() / 2);
+        return side;
+    }
+
+    /**
+     * Run an operation enough times to warm it up, then log its average time and allocations.
+     */
+    private static void measure(String name, int width, int height, Runnable operation) {
+        for (int i = 0; i < WARMUP_COUNT; i++) {
+            operation.run();
+        }
+        Debug.resetThreadAllocSize();
+        long startNanos = System.nanoTime();
+        for (int i = 0; i < MEASURE_COUNT; i++) {
+            operation.run();
+        }
+        long nanos = System.nanoTime() - startNanos;
+        long bytes = Debug.getThreadAllocSize();
+        Log.i(TAG, name + " " + width + "x" + height + ": " + nanos / MEASURE_COUNT + " ns/op, "
+                + bytes / MEASURE_COUNT + " B/op");
+    }
+}
@@ -0,0 +1,86 @@
+package worldline.com.foldablelayout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.drawable.GradientDrawable;
+import android.test.AndroidTestCase;
+import android.util.Log;
+import android.view.View;
+
+/**
+ * Compares the reduced-precision snapshots with the full-precision one, side by side: the memory
+ * they take, and the mean error of their pixels once drawn at full size.
+ */
+public class SnapshotQualityTest extends AndroidTestCase {
+
+    private static final String TAG = "SnapshotQualityTest";
+
+    private static final int WIDTH = 480;
+    private static final int HEIGHT = 640;
+
+    private View mView;
+    private BitmapSnapshot mFullSnapshot;
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        GradientDrawable background = new GradientDrawable(GradientDrawable.Orientation.TL_BR,
+                new int[]{Color.rgb(230, 80, 20), Color.rgb(20, 120, 200), Color.rgb(250, 250, 250)});
+        mView = new View(getContext());
+        mView.setBackgroundDrawable(background);
+        mView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        mView.layout(0, 0, WIDTH, HEIGHT);
+        mFullSnapshot = capture(Bitmap.Config.ARGB_8888, 1);
+    }
+
+    public void testRgb565_takesHalfTheMemory() throws Exception {
+        BitmapSnapshot snapshot = capture(Bitmap.Config.RGB_565, 1);
+        assertEquals(getByteCount(mFullSnapshot) / 2, getByteCount(snapshot));
+        assertTrue(getMeanError(snapshot) < 4);
+    }
+
+    public void testDownscaled_takesAQuarterOfTheMemory() throws Exception {
+        BitmapSnapshot snapshot = capture(Bitmap.Config.ARGB_8888, 2);
+        assertEquals(WIDTH, snapshot.getWidth());
+        assertEquals(HEIGHT, snapshot.getHeight());
+        assertEquals(getByteCount(mFullSnapshot) / 4, getByteCount(snapshot));
+        assertTrue(getMeanError(snapshot) < 8);
+    }
+
+    private BitmapSnapshot capture(Bitmap.Config config, int downscaleFactor) {
+        return (BitmapSnapshot) new BitmapSnapshotStrategy(config, downscaleFactor).capture(mView, new BitmapPool(0));
+    }
+
+    private static int getByteCount(BitmapSnapshot snapshot) {
+        return snapshot.getBitmap().getRowBytes() * snapshot.getBitmap().getHeight();
+    }
+
+    /**
+     * @return the mean difference of the color channels with the full-precision snapshot, from 0 to 255.
+     */
+    private float getMeanError(BitmapSnapshot snapshot) {
+        int[] expected = render(mFullSnapshot);
+        int[] actual = render(snapshot);
+        long error = 0;
+        for (int i = 0; i < expected.length; i++) {
+            error += Math.abs(Color.red(expected[i]) - Color.red(actual[i]))
+                    + Math.abs(Color.green(expected[i]) - Color.green(actual[i]))
+                    + Math.abs(Color.blue(expected[i]) - Color.blue(actual[i]));
+        }
+        float meanError = (float) error / (expected.length * 3);
+        Log.i(TAG, snapshot.getBitmap().getConfig() + " " + snapshot.getBitmap().getWidth() + "x"
+                + snapshot.getBitmap().getHeight() + ": " + getByteCount(snapshot) + " bytes, mean error " + meanError);
+        return meanError;
+    }
+
+    private static int[] render(Snapshot snapshot) {
+        Bitmap bitmap = Bitmap.createBitmap(WIDTH, HEIGHT, Bitmap.Config.ARGB_8888);
+        snapshot.draw(new Canvas(bitmap));
+        int[] pixels = new int[WIDTH * HEIGHT];
+        bitmap.getPixels(pixels, 0, WIDTH, 0, 0, WIDTH, HEIGHT);
+        bitmap.recycle();
+        return pixels;
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.DisplayMetrics;
+
+import java.util.Iterator;
+import java.util.LinkedList;
+
+/**
+ * Pool of mutable bitmaps, keyed by size and config, used to store the snapshots needed by the
+ * folding animations. Bitmaps given back to the pool are kept until the byte budget of the pool is
+ * exceeded, in which case the least recently returned bitmaps are evicted and recycled.
+ */
+public class BitmapPool {
+
+    private static final int DEFAULT_MAX_SIZE = 8 * 1024 * 1024;
+
+    private static BitmapPool sDefaultPool;
+    private static boolean sDefaultPoolSized;
+
+    private final LinkedList<Bitmap> mBitmaps = new LinkedList<>();
+    private int mMaxSize;
+    private int mSize;
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+    private long mAllocatedByteCount;
+
+    /**
+     * Basic constructor.
+     *
+     * @param maxSize is the maximum number of bytes kept by this pool.
+     */
+    public BitmapPool(int maxSize) {
+        mMaxSize = maxSize;
+    }
+
+    /**
+     * Get the pool shared by all {@link FoldableLayout} which do not have their own pool.
+     *
+     * @return the default pool.
+     */
+    public static synchronized BitmapPool getDefault() {
+        if (sDefaultPool == null) {
+            sDefaultPool = new BitmapPool(DEFAULT_MAX_SIZE);
+        }
+        return sDefaultPool;
+    }
+
+    /**
+     * Get the pool shared by all {@link FoldableLayout} which do not have their own pool, sized the
+     * first time for the device: it holds two full screen bitmaps, within an eighth of the memory
+     * class of the app, and at least 8 MiB.
+     *
+     * @param context is a valid context.
+     * @return the default pool.
+     */
+    public static synchronized BitmapPool getDefault(Context context) {
+        BitmapPool pool = getDefault();
+        if (!sDefaultPoolSized) {
+            sDefaultPoolSized = true;
+            pool.setMaxSize(Math.max(pool.getMaxSize(), getDeviceMaxSize(context)));
+        }
+        return pool;
+    }
+
+    private static int getDeviceMaxSize(Context context) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        int screenSize = metrics.widthPixels * metrics.heightPixels * 4;
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        int memorySize = activityManager.getMemoryClass() * 1024 * 1024 / 8;
+        return Math.min(2 * screenSize, memorySize);
+    }
+
+    /**
+     * Get a cleared mutable bitmap from the pool, or create one if none matches.
+     *
+     * @param width  is the width of the bitmap.
+     * @param height is the height of the bitmap.
+     * @param config is the config of the bitmap.
+     * @return a mutable bitmap which should be given back with {@link #put(Bitmap)} once unused.
+     */
+    public synchronized Bitmap get(int width, int height, Bitmap.Config config) {
+        Iterator<Bitmap> iterator = mBitmaps.descendingIterator();
+        while (iterator.hasNext()) {
+            Bitmap bitmap = iterator.next();
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height && bitmap.getConfig() == config) {
+                iterator.remove();
+                mSize -= getByteCount(bitmap);
+                mHitCount++;
+                bitmap.eraseColor(Color.TRANSPARENT);
+                return bitmap;
+            }
+        }
+        mMissCount++;
+        Bitmap bitmap = Bitmap.createBitmap(width, height, config);
+        mAllocatedByteCount += getByteCount(bitmap);
+        return bitmap;
+    }
+
+    /**
+     * Give back a bitmap to the pool. The bitmap must not be used anymore by the caller.
+     *
+     * @param bitmap is the bitmap to give back, null is ignored.
+     */
+    public synchronized void put(Bitmap bitmap) {
+        if (bitmap == null || bitmap.isRecycled()) {
+            return;
+        }
+        if (!bitmap.isMutable() || getByteCount(bitmap) > mMaxSize) {
+            bitmap.recycle();
+            mEvictionCount++;
+            return;
+        }
+        mBitmaps.addLast(bitmap);
+        mSize += getByteCount(bitmap);
+        trimToSize(mMaxSize);
+    }
+
+    /**
+     * Set the maximum number of bytes kept by this pool, evicting bitmaps if needed.
+     *
+     * @param maxSize is the maximum number of bytes.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        mMaxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    /**
+     * Evict all bitmaps of the pool.
+     */
+    public synchronized void clear() {
+        trimToSize(0);
+    }
+
+    public synchronized int getMaxSize() {
+        return mMaxSize;
+    }
+
+    public synchronized int getSize() {
+        return mSize;
+    }
+
+    public synchronized int getHitCount() {
+        return mHitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return mMissCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return mEvictionCount;
+    }
+
+    /**
+     * @return the number of bytes of all the bitmaps created by this pool, because none matched.
+     */
+    public synchronized long getAllocatedByteCount() {
+        return mAllocatedByteCount;
+    }
+
+    private void trimToSize(int maxSize) {
+        while (mSize > maxSize && !mBitmaps.isEmpty()) {
+            Bitmap bitmap = mBitmaps.removeFirst();
+            mSize -= getByteCount(bitmap);
+            bitmap.recycle();
+            mEvictionCount++;
+        }
+    }
+
+    private static int getByteCount(Bitmap bitmap) {
+        return bitmap.getRowBytes() * bitmap.getHeight();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "BitmapPool[size=" + mSize + ", maxSize=" + mMaxSize + ", hits=" + mHitCount
+                + ", misses=" + mMissCount + ", evictions=" + mEvictionCount + ", allocated=" + mAllocatedByteCount + "]";
+    }
+}
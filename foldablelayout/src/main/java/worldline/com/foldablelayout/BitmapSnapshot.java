@@ -0,0 +1,121 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.PaintFlagsDrawFilter;
+import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.view.View;
+
+/**
+ * Snapshot backed by a bitmap borrowed from a {@link BitmapPool}, and given back on release. The
+ * bitmap may be smaller than the snapshot, in which case it is scaled up when drawn.
+ */
+public class BitmapSnapshot implements Snapshot {
+
+    private final Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final BitmapPool mBitmapPool;
+    private final int mWidth;
+    private final int mHeight;
+    private Bitmap mBitmap;
+
+    /**
+     * Basic constructor.
+     *
+     * @param bitmap     is the bitmap holding the pixels of the snapshot.
+     * @param bitmapPool is the pool the bitmap is given back to on release.
+     */
+    public BitmapSnapshot(Bitmap bitmap, BitmapPool bitmapPool) {
+        this(bitmap, bitmap.getWidth(), bitmap.getHeight(), bitmapPool);
+    }
+
+    /**
+     * Constructor of a snapshot bigger than its bitmap.
+     *
+     * @param bitmap     is the bitmap holding the pixels of the snapshot.
+     * @param width      is the width of the snapshot.
+     * @param height     is the height of the snapshot.
+     * @param bitmapPool is the pool the bitmap is given back to on release.
+     */
+    public BitmapSnapshot(Bitmap bitmap, int width, int height, BitmapPool bitmapPool) {
+        mBitmap = bitmap;
+        mWidth = width;
+        mHeight = height;
+        mBitmapPool = bitmapPool;
+    }
+
+    public Bitmap getBitmap() {
+        return mBitmap;
+    }
+
+    @Override
+    public int getWidth() {
+        return mBitmap == null ? 0 : mWidth;
+    }
+
+    @Override
+    public int getHeight() {
+        return mBitmap == null ? 0 : mHeight;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (mBitmap == null || mBitmap.isRecycled()) {
+            return;
+        }
+        if (mBitmap.getWidth() == mWidth && mBitmap.getHeight() == mHeight) {
+            canvas.drawBitmap(mBitmap, 0, 0, mPaint);
+        } else {
+            int saveCount = canvas.save();
+            canvas.scale((float) mWidth / mBitmap.getWidth(), (float) mHeight / mBitmap.getHeight());
+            canvas.drawBitmap(mBitmap, 0, 0, mPaint);
+            canvas.restoreToCount(saveCount);
+        }
+    }
+
+    /**
+     * Draw again a region of the captured view into the bitmap, for instance once an image of the
+     * view is loaded, instead of capturing the whole view again.
+     *
+     * @param view  is the captured view, laid out as when it was captured.
+     * @param dirty is the region to draw again, in the coordinates of the view.
+     */
+    public void refresh(View view, Rect dirty) {
+        if (mBitmap == null || mBitmap.isRecycled()) {
+            return;
+        }
+        Canvas canvas = new Canvas(mBitmap);
+        if (mBitmap.getWidth() != mWidth || mBitmap.getHeight() != mHeight) {
+            canvas.setDrawFilter(new PaintFlagsDrawFilter(0, Paint.FILTER_BITMAP_FLAG));
+            canvas.scale((float) mBitmap.getWidth() / Math.max(1, mWidth), (float) mBitmap.getHeight() / Math.max(1, mHeight));
+        }
+        canvas.clipRect(dirty);
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        canvas.translate(-view.getScrollX(), -view.getScrollY());
+        view.draw(canvas);
+    }
+
+    @Override
+    public void release() {
+        mBitmapPool.put(mBitmap);
+        mBitmap = null;
+    }
+}
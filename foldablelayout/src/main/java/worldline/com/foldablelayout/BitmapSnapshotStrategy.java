@@ -0,0 +1,71 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PaintFlagsDrawFilter;
+import android.view.View;
+
+/**
+ * Capture a view by drawing it into a pooled bitmap of a reduced precision, to lower the memory
+ * used by snapshots on low-memory devices. The bitmap may use a smaller config, such as
+ * {@link Bitmap.Config#RGB_565} which drops the transparency, and may be downscaled, in which case
+ * bitmaps are filtered bilinearly when drawn into the snapshot and when the snapshot is drawn.
+ */
+public class BitmapSnapshotStrategy implements SnapshotStrategy {
+
+    private final PaintFlagsDrawFilter mDrawFilter = new PaintFlagsDrawFilter(0, Paint.FILTER_BITMAP_FLAG);
+    private final Bitmap.Config mConfig;
+    private final int mDownscaleFactor;
+
+    /**
+     * Basic constructor.
+     *
+     * @param config          is the config of the snapshots.
+     * @param downscaleFactor divides the width and the height of the snapshots, 1 to keep them full size.
+     */
+    public BitmapSnapshotStrategy(Bitmap.Config config, int downscaleFactor) {
+        if (downscaleFactor < 1) {
+            throw new IllegalArgumentException("The downscale factor must be at least 1");
+        }
+        mConfig = config;
+        mDownscaleFactor = downscaleFactor;
+    }
+
+    public Bitmap.Config getConfig() {
+        return mConfig;
+    }
+
+    public int getDownscaleFactor() {
+        return mDownscaleFactor;
+    }
+
+    @Override
+    public Snapshot capture(View view, BitmapPool bitmapPool) {
+        int width = view.getWidth();
+        int height = view.getHeight();
+        Bitmap bitmap = bitmapPool.get(Math.max(1, width / mDownscaleFactor), Math.max(1, height / mDownscaleFactor), mConfig);
+        Canvas canvas = new Canvas(bitmap);
+        canvas.setDrawFilter(mDrawFilter);
+        canvas.scale((float) bitmap.getWidth() / Math.max(1, width), (float) bitmap.getHeight() / Math.max(1, height));
+        canvas.translate(-view.getScrollX(), -view.getScrollY());
+        view.draw(canvas);
+        return new BitmapSnapshot(bitmap, width, height, bitmapPool);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.annotation.LayoutRes;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Inflater of layouts on a background thread, used to inflate the detail views ahead of their
+ * first unfold. Layouts which cannot be inflated off the UI thread are inflated on it instead.
+ * <p/>
+ * The background thread has no looper on purpose: a view creating a handler while inflated fails
+ * there and falls back to the UI thread, instead of silently binding its handler to the background
+ * thread.
+ */
+final class DetailInflater {
+
+    private static final String TAG = "DetailInflater";
+
+    private static ExecutorService sBackgroundExecutor;
+    private static Handler sMainHandler;
+
+    /**
+     * Callback receiving an inflated layout on the UI thread.
+     */
+    interface Callback {
+
+        void onInflated(View view);
+    }
+
+    private DetailInflater() {
+    }
+
+    /**
+     * Inflate a layout off the UI thread. Must be called from the UI thread.
+     *
+     * @param context  is the context of the inflated views.
+     * @param layoutId is the layout to inflate.
+     * @param parent   is the future parent of the view, used to generate its layout params.
+     * @param callback is the callback receiving the view on the UI thread.
+     */
+    static void inflate(final Context context, @LayoutRes final int layoutId, final ViewGroup parent, final Callback callback) {
+        // Each inflation has its own inflater, the one of the context is not thread safe.
+        final LayoutInflater inflater = LayoutInflater.from(context).cloneInContext(context);
+        getBackgroundExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                View view;
+                try {
+                    view = inflater.inflate(layoutId, parent, false);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Failed to inflate the layout off the UI thread, falling back to the UI thread", e);
+                    view = null;
+                }
+                final View inflatedView = view;
+                sMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        callback.onInflated(inflatedView != null ? inflatedView : inflater.inflate(layoutId, parent, false));
+                    }
+                });
+            }
+        });
+    }
+
+    private static synchronized ExecutorService getBackgroundExecutor() {
+        if (sBackgroundExecutor == null) {
+            sBackgroundExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    Thread thread = new Thread(new Runnable() {
+                        @Override
+                        public void run() {
+                            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                            runnable.run();
+                        }
+                    }, TAG);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            sMainHandler = new Handler(Looper.getMainLooper());
+        }
+        return sBackgroundExecutor;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.view.View;
+
+/**
+ * Capture a view through its drawing cache, copied into a pooled bitmap. This is the historical
+ * strategy, used on API levels where pictures cannot be drawn on hardware accelerated canvases.
+ */
+public class DrawingCacheSnapshotStrategy implements SnapshotStrategy {
+
+    @Override
+    public Snapshot capture(View view, BitmapPool bitmapPool) {
+        view.destroyDrawingCache();
+        view.setDrawingCacheEnabled(true);
+        view.buildDrawingCache(true);
+        Bitmap cache = view.getDrawingCache(true);
+        Bitmap bitmap;
+        if (cache == null) {
+            bitmap = bitmapPool.get(2, 2, Bitmap.Config.ARGB_8888);
+        } else {
+            bitmap = bitmapPool.get(cache.getWidth(), cache.getHeight(), Bitmap.Config.ARGB_8888);
+            new Canvas(bitmap).drawBitmap(cache, 0, 0, null);
+        }
+        view.destroyDrawingCache();
+        view.setDrawingCacheEnabled(false);
+        return new BitmapSnapshot(bitmap, bitmapPool);
+    }
+}
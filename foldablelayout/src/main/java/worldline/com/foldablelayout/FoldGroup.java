@@ -0,0 +1,365 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.TimeInterpolator;
+import android.animation.ValueAnimator;
+import android.view.ViewParent;
+import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.LinearInterpolator;
+
+import java.util.ArrayList;
+
+/**
+ * Folds or unfolds several {@link FoldableLayout} together, such as for a "collapse all" action.
+ * All the layouts are driven by a single animator: each frame moves every fold, then requests
+ * one layout pass per parent. The detail views are captured one per frame, so that starting the
+ * group does not capture them all in the same frame, and the folds can be cascaded with a delay.
+ * Groups are used from the main thread.
+ */
+public class FoldGroup {
+
+    private static final int DEFAULT_DURATION = 600;
+
+    private static final int STATE_PENDING = 0;
+    private static final int STATE_RUNNING = 1;
+    private static final int STATE_DONE = 2;
+
+    private final ArrayList<FoldableLayout> mLayouts = new ArrayList<>();
+    private final ArrayList<ViewParent> mLayoutParents = new ArrayList<>();
+    private long mDuration = DEFAULT_DURATION;
+    private TimeInterpolator mInterpolator = new AccelerateDecelerateInterpolator();
+    private ValueAnimator mAnimator;
+    private boolean mUnfolding;
+    private long mCascadeDelay;
+    private FoldableLayout[] mDrivenLayouts;
+    private int[] mStates;
+    private long[] mStartTimes;
+    private float[] mStartProgresses;
+
+    private final ValueAnimator.AnimatorUpdateListener mAnimatorUpdateListener = new ValueAnimator.AnimatorUpdateListener() {
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            if (!drive(animation.getCurrentPlayTime())) {
+                stop();
+            }
+        }
+    };
+
+    private final Animator.AnimatorListener mAnimatorListener = new AnimatorListenerAdapter() {
+        @Override
+        public void onAnimationCancel(Animator animation) {
+            // Canceled from outside: the folds land where they are.
+            if (animation == mAnimator) {
+                cancel();
+            }
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            // Ended early, for instance when animations are disabled: the folds jump to their end.
+            if (animation == mAnimator) {
+                end();
+            }
+        }
+    };
+
+    /**
+     * Add a layout to the group.
+     *
+     * @param foldableLayout is the layout to add.
+     */
+    public void add(FoldableLayout foldableLayout) {
+        if (!mLayouts.contains(foldableLayout)) {
+            mLayouts.add(foldableLayout);
+        }
+    }
+
+    /**
+     * Remove a layout from the group. A fold driven by the group is not driven anymore, and lands
+     * in its closest state.
+     *
+     * @param foldableLayout is the layout to remove.
+     */
+    public void remove(FoldableLayout foldableLayout) {
+        mLayouts.remove(foldableLayout);
+        if (mDrivenLayouts != null) {
+            for (int i = 0; i < mDrivenLayouts.length; i++) {
+                if (mDrivenLayouts[i] == foldableLayout && mStates[i] != STATE_DONE) {
+                    release(i);
+                    if (foldableLayout.isAnimating() && !isTakenOver(foldableLayout)) {
+                        foldableLayout.cancelAnimation();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Set the duration of a complete fold of each layout.
+     *
+     * @param duration is the duration in milliseconds.
+     */
+    public void setDuration(long duration) {
+        mDuration = duration;
+    }
+
+    public long getDuration() {
+        return mDuration;
+    }
+
+    /**
+     * Set the interpolator of the fold of each layout.
+     *
+     * @param interpolator is the interpolator to use.
+     */
+    public void setInterpolator(TimeInterpolator interpolator) {
+        mInterpolator = interpolator;
+    }
+
+    public TimeInterpolator getInterpolator() {
+        return mInterpolator;
+    }
+
+    /**
+     * Fold all the layouts of the group together.
+     */
+    public void collapseAll() {
+        collapseAll(0);
+    }
+
+    /**
+     * Fold all the layouts of the group, in their order of addition.
+     *
+     * @param cascadeDelay is the delay in milliseconds between the start of two folds.
+     */
+    public void collapseAll(long cascadeDelay) {
+        start(false, cascadeDelay);
+    }
+
+    /**
+     * Unfold all the layouts of the group together.
+     */
+    public void expandAll() {
+        expandAll(0);
+    }
+
+    /**
+     * Unfold all the layouts of the group, in their order of addition.
+     *
+     * @param cascadeDelay is the delay in milliseconds between the start of two unfolds.
+     */
+    public void expandAll(long cascadeDelay) {
+        start(true, cascadeDelay);
+    }
+
+    /**
+     * Stop driving the layouts. Started folds land in their closest state, the others do not start.
+     */
+    public void cancel() {
+        if (mDrivenLayouts == null) {
+            return;
+        }
+        for (int i = 0; i < mDrivenLayouts.length; i++) {
+            if (mStates[i] == STATE_RUNNING) {
+                release(i);
+                FoldableLayout foldableLayout = mDrivenLayouts[i];
+                if (foldableLayout.isAnimating() && !isTakenOver(foldableLayout)) {
+                    foldableLayout.cancelAnimation();
+                }
+            }
+        }
+        stop();
+    }
+
+    /**
+     * Stop driving the layouts, every fold jumping to its end, including the ones not started.
+     */
+    private void end() {
+        if (mDrivenLayouts == null) {
+            return;
+        }
+        float end = mUnfolding ? 1 : 0;
+        for (int i = 0; i < mDrivenLayouts.length; i++) {
+            FoldableLayout foldableLayout = mDrivenLayouts[i];
+            if (mStates[i] == STATE_RUNNING) {
+                release(i);
+                if (foldableLayout.isAnimating() && !isTakenOver(foldableLayout)) {
+                    foldableLayout.setFoldFraction(end);
+                }
+            } else if (mStates[i] == STATE_PENDING) {
+                mStates[i] = STATE_DONE;
+                if (needsDrive(foldableLayout, mUnfolding) && !foldableLayout.isAnimating()) {
+                    if (mUnfolding) {
+                        foldableLayout.unfoldWithoutAnimation();
+                    } else {
+                        foldableLayout.foldWithoutAnimation();
+                    }
+                }
+            }
+        }
+        stop();
+    }
+
+    public boolean isRunning() {
+        return mAnimator != null;
+    }
+
+    private void start(boolean unfold, long cascadeDelay) {
+        cancel();
+        mUnfolding = unfold;
+        mCascadeDelay = cascadeDelay;
+        // Only the layouts which are set up and not yet in the requested state are driven.
+        int count = 0;
+        for (int i = 0; i < mLayouts.size(); i++) {
+            if (needsDrive(mLayouts.get(i), unfold)) {
+                count++;
+            }
+        }
+        if (count == 0) {
+            return;
+        }
+        mDrivenLayouts = new FoldableLayout[count];
+        mStates = new int[count];
+        mStartTimes = new long[count];
+        mStartProgresses = new float[count];
+        count = 0;
+        for (int i = 0; i < mLayouts.size(); i++) {
+            FoldableLayout foldableLayout = mLayouts.get(i);
+            if (needsDrive(foldableLayout, unfold)) {
+                mDrivenLayouts[count++] = foldableLayout;
+            }
+        }
+        // The animator only ticks the frames, its play time being the clock of all the folds.
+        mAnimator = ValueAnimator.ofFloat(0, 1);
+        mAnimator.setDuration(Integer.MAX_VALUE);
+        mAnimator.setInterpolator(new LinearInterpolator());
+        mAnimator.addUpdateListener(mAnimatorUpdateListener);
+        mAnimator.addListener(mAnimatorListener);
+        mAnimator.start();
+    }
+
+    private static boolean needsDrive(FoldableLayout foldableLayout, boolean unfold) {
+        return foldableLayout.getCoverView() != null
+                && (foldableLayout.isAnimating() || foldableLayout.isFolded() == unfold);
+    }
+
+    /**
+     * Move all the folds for one frame.
+     *
+     * @param time is the time elapsed since the group started, in milliseconds.
+     * @return true while some folds are not over.
+     */
+    private boolean drive(long time) {
+        float end = mUnfolding ? 1 : 0;
+        boolean captured = false;
+        boolean running = false;
+        for (int i = 0; i < mDrivenLayouts.length; i++) {
+            FoldableLayout foldableLayout = mDrivenLayouts[i];
+            if (mStates[i] == STATE_PENDING) {
+                // At most one fold starts per frame, as starting may capture the detail view.
+                if (!captured && time >= i * mCascadeDelay) {
+                    captured = true;
+                    foldableLayout.setLayoutDeferred(true);
+                    mStartProgresses[i] = foldableLayout.takeOverFold(mUnfolding);
+                    mStartTimes[i] = time;
+                    mStates[i] = STATE_RUNNING;
+                }
+                running = true;
+            } else if (mStates[i] == STATE_RUNNING) {
+                if (isTakenOver(foldableLayout) || !foldableLayout.isAnimating()) {
+                    // The layout was taken over by its own animation, a drag, or ended meanwhile.
+                    release(i);
+                    continue;
+                }
+                float distance = Math.abs(end - mStartProgresses[i]);
+                float fraction = distance == 0 ? 1 : (time - mStartTimes[i]) / (mDuration * distance);
+                if (fraction >= 1) {
+                    foldableLayout.setFoldFraction(end);
+                    release(i);
+                } else {
+                    float progress = mStartProgresses[i] + (end - mStartProgresses[i]) * mInterpolator.getInterpolation(fraction);
+                    foldableLayout.setFoldFraction(progress);
+                    running = true;
+                }
+            }
+        }
+        requestLayouts();
+        return running;
+    }
+
+    /**
+     * @return true if the fold of the layout is moved by its own animation or by a drag.
+     */
+    private static boolean isTakenOver(FoldableLayout foldableLayout) {
+        return foldableLayout.hasAnimator() || foldableLayout.isDragging();
+    }
+
+    /**
+     * Stop driving a layout, requesting the layout pass it may still need.
+     */
+    private void release(int index) {
+        FoldableLayout foldableLayout = mDrivenLayouts[index];
+        mStates[index] = STATE_DONE;
+        foldableLayout.setLayoutDeferred(false);
+        if (foldableLayout.consumeLayoutRequest()) {
+            foldableLayout.requestLayout();
+        }
+    }
+
+    /**
+     * Request one layout pass for each parent of the layouts which changed size during the frame.
+     */
+    private void requestLayouts() {
+        for (int i = 0; i < mDrivenLayouts.length; i++) {
+            FoldableLayout foldableLayout = mDrivenLayouts[i];
+            if (foldableLayout.consumeLayoutRequest()) {
+                ViewParent parent = foldableLayout.getParent();
+                if (parent == null) {
+                    foldableLayout.requestLayout();
+                } else if (!mLayoutParents.contains(parent)) {
+                    mLayoutParents.add(parent);
+                    parent.requestLayout();
+                }
+            }
+        }
+        mLayoutParents.clear();
+    }
+
+    private void stop() {
+        ValueAnimator animator = mAnimator;
+        mAnimator = null;
+        if (animator != null) {
+            animator.removeAllUpdateListeners();
+            animator.removeAllListeners();
+            animator.cancel();
+        }
+        if (mDrivenLayouts != null) {
+            for (int i = 0; i < mDrivenLayouts.length; i++) {
+                if (mStates[i] != STATE_DONE) {
+                    release(i);
+                }
+            }
+        }
+        mDrivenLayouts = null;
+        mStates = null;
+        mStartTimes = null;
+        mStartProgresses = null;
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+/**
+ * Cost of one fold of a {@link FoldableLayout}, from the capture of the detail view to the end
+ * of the fold. Durations are in nanoseconds.
+ */
+public class FoldMetrics {
+
+    private boolean mUnfolded;
+    private boolean mSnapshotWarm;
+    private long mSnapshotCaptureNanos;
+    private long mBitmapAllocatedBytes;
+    private int mFrameCount;
+    private long mTotalFrameUpdateNanos;
+    private long mMaxFrameUpdateNanos;
+    private int mLateFrameCount;
+    private int mDroppedFrameCount;
+    private long mDurationNanos;
+
+    /**
+     * Basic constructor.
+     */
+    public FoldMetrics() {
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param metrics are the metrics to copy.
+     */
+    public FoldMetrics(FoldMetrics metrics) {
+        set(metrics);
+    }
+
+    /**
+     * @return true if the layout ended unfolded, false if it ended folded.
+     */
+    public boolean isUnfolded() {
+        return mUnfolded;
+    }
+
+    /**
+     * @return true if the snapshot had been captured ahead of time.
+     */
+    public boolean isSnapshotWarm() {
+        return mSnapshotWarm;
+    }
+
+    /**
+     * @return the time spent capturing the detail view when the fold started.
+     */
+    public long getSnapshotCaptureNanos() {
+        return mSnapshotCaptureNanos;
+    }
+
+    /**
+     * @return the number of bytes of the bitmaps allocated by the pool to capture the detail view.
+     */
+    public long getBitmapAllocatedBytes() {
+        return mBitmapAllocatedBytes;
+    }
+
+    /**
+     * @return the number of frames rendered by the fold.
+     */
+    public int getFrameCount() {
+        return mFrameCount;
+    }
+
+    /**
+     * @return the time spent updating the views of the fold, summed over all its frames.
+     */
+    public long getTotalFrameUpdateNanos() {
+        return mTotalFrameUpdateNanos;
+    }
+
+    /**
+     * @return the longest time spent updating the views of the fold for one frame.
+     */
+    public long getMaxFrameUpdateNanos() {
+        return mMaxFrameUpdateNanos;
+    }
+
+    /**
+     * @return the number of frames displayed after more than one refresh interval. Always 0 below API 16.
+     */
+    public int getLateFrameCount() {
+        return mLateFrameCount;
+    }
+
+    /**
+     * @return the number of refresh intervals without a new frame. Always 0 below API 16.
+     */
+    public int getDroppedFrameCount() {
+        return mDroppedFrameCount;
+    }
+
+    /**
+     * @return the wall time of the fold, from its start to its end.
+     */
+    public long getDurationNanos() {
+        return mDurationNanos;
+    }
+
+    void set(FoldMetrics metrics) {
+        mUnfolded = metrics.mUnfolded;
+        mSnapshotWarm = metrics.mSnapshotWarm;
+        mSnapshotCaptureNanos = metrics.mSnapshotCaptureNanos;
+        mBitmapAllocatedBytes = metrics.mBitmapAllocatedBytes;
+        mFrameCount = metrics.mFrameCount;
+        mTotalFrameUpdateNanos = metrics.mTotalFrameUpdateNanos;
+        mMaxFrameUpdateNanos = metrics.mMaxFrameUpdateNanos;
+        mLateFrameCount = metrics.mLateFrameCount;
+        mDroppedFrameCount = metrics.mDroppedFrameCount;
+        mDurationNanos = metrics.mDurationNanos;
+    }
+
+    void reset() {
+        mUnfolded = false;
+        mSnapshotWarm = false;
+        mSnapshotCaptureNanos = 0;
+        mBitmapAllocatedBytes = 0;
+        mFrameCount = 0;
+        mTotalFrameUpdateNanos = 0;
+        mMaxFrameUpdateNanos = 0;
+        mLateFrameCount = 0;
+        mDroppedFrameCount = 0;
+        mDurationNanos = 0;
+    }
+
+    void setSnapshot(boolean warm, long captureNanos, long allocatedBytes) {
+        mSnapshotWarm = warm;
+        mSnapshotCaptureNanos = captureNanos;
+        mBitmapAllocatedBytes = allocatedBytes;
+    }
+
+    void addFrameUpdate(long updateNanos) {
+        mFrameCount++;
+        mTotalFrameUpdateNanos += updateNanos;
+        mMaxFrameUpdateNanos = Math.max(mMaxFrameUpdateNanos, updateNanos);
+    }
+
+    void addLateFrame(int droppedFrameCount) {
+        mLateFrameCount++;
+        mDroppedFrameCount += droppedFrameCount;
+    }
+
+    void setEnd(boolean unfolded, long durationNanos) {
+        mUnfolded = unfolded;
+        mDurationNanos = durationNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "FoldMetrics[unfolded=" + mUnfolded + ", warm=" + mSnapshotWarm
+                + ", captureNanos=" + mSnapshotCaptureNanos + ", allocatedBytes=" + mBitmapAllocatedBytes
+                + ", frames=" + mFrameCount + ", totalUpdateNanos=" + mTotalFrameUpdateNanos
+                + ", maxUpdateNanos=" + mMaxFrameUpdateNanos + ", lateFrames=" + mLateFrameCount
+                + ", droppedFrames=" + mDroppedFrameCount + ", durationNanos=" + mDurationNanos + "]";
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+/**
+ * Listener receiving the cost of each fold of a {@link FoldableLayout}, see
+ * {@link FoldableLayout#setFoldMetricsListener(FoldMetricsListener)}.
+ */
+public interface FoldMetricsListener {
+
+    /**
+     * Dispatch when a fold or an unfold ends, whether animated, dragged or set manually.
+     *
+     * @param metrics are the metrics of the fold. The instance is reused by the layout, it must
+     *                be copied to be kept after this call.
+     */
+    void onFoldMetrics(FoldMetrics metrics);
+}
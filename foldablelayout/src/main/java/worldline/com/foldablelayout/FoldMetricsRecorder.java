@@ -0,0 +1,161 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.util.Log;
+
+/**
+ * {@link FoldMetricsListener} aggregating the metrics of all the folds it receives in memory, so
+ * that they can be dumped to the logs. A recorder can be shared by several layouts.
+ */
+public class FoldMetricsRecorder implements FoldMetricsListener {
+
+    private static final long NANOS_PER_MILLI = 1000000;
+
+    private int mFoldCount;
+    private int mWarmSnapshotCount;
+    private long mTotalSnapshotCaptureNanos;
+    private long mMaxSnapshotCaptureNanos;
+    private long mTotalBitmapAllocatedBytes;
+    private int mFrameCount;
+    private long mTotalFrameUpdateNanos;
+    private long mMaxFrameUpdateNanos;
+    private int mLateFrameCount;
+    private int mDroppedFrameCount;
+    private long mTotalDurationNanos;
+    private long mMaxDurationNanos;
+
+    @Override
+    public synchronized void onFoldMetrics(FoldMetrics metrics) {
+        mFoldCount++;
+        if (metrics.isSnapshotWarm()) {
+            mWarmSnapshotCount++;
+        }
+        mTotalSnapshotCaptureNanos += metrics.getSnapshotCaptureNanos();
+        mMaxSnapshotCaptureNanos = Math.max(mMaxSnapshotCaptureNanos, metrics.getSnapshotCaptureNanos());
+        mTotalBitmapAllocatedBytes += metrics.getBitmapAllocatedBytes();
+        mFrameCount += metrics.getFrameCount();
+        mTotalFrameUpdateNanos += metrics.getTotalFrameUpdateNanos();
+        mMaxFrameUpdateNanos = Math.max(mMaxFrameUpdateNanos, metrics.getMaxFrameUpdateNanos());
+        mLateFrameCount += metrics.getLateFrameCount();
+        mDroppedFrameCount += metrics.getDroppedFrameCount();
+        mTotalDurationNanos += metrics.getDurationNanos();
+        mMaxDurationNanos = Math.max(mMaxDurationNanos, metrics.getDurationNanos());
+    }
+
+    public synchronized int getFoldCount() {
+        return mFoldCount;
+    }
+
+    public synchronized int getWarmSnapshotCount() {
+        return mWarmSnapshotCount;
+    }
+
+    public synchronized long getTotalBitmapAllocatedBytes() {
+        return mTotalBitmapAllocatedBytes;
+    }
+
+    public synchronized int getFrameCount() {
+        return mFrameCount;
+    }
+
+    public synchronized int getLateFrameCount() {
+        return mLateFrameCount;
+    }
+
+    public synchronized int getDroppedFrameCount() {
+        return mDroppedFrameCount;
+    }
+
+    /**
+     * @return the average time spent capturing the detail view per fold, in nanoseconds.
+     */
+    public synchronized long getAverageSnapshotCaptureNanos() {
+        return mFoldCount == 0 ? 0 : mTotalSnapshotCaptureNanos / mFoldCount;
+    }
+
+    public synchronized long getMaxSnapshotCaptureNanos() {
+        return mMaxSnapshotCaptureNanos;
+    }
+
+    /**
+     * @return the average time spent updating the views per frame, in nanoseconds.
+     */
+    public synchronized long getAverageFrameUpdateNanos() {
+        return mFrameCount == 0 ? 0 : mTotalFrameUpdateNanos / mFrameCount;
+    }
+
+    public synchronized long getMaxFrameUpdateNanos() {
+        return mMaxFrameUpdateNanos;
+    }
+
+    /**
+     * @return the average wall time per fold, in nanoseconds.
+     */
+    public synchronized long getAverageDurationNanos() {
+        return mFoldCount == 0 ? 0 : mTotalDurationNanos / mFoldCount;
+    }
+
+    public synchronized long getMaxDurationNanos() {
+        return mMaxDurationNanos;
+    }
+
+    /**
+     * Forget all the folds recorded so far.
+     */
+    public synchronized void reset() {
+        mFoldCount = 0;
+        mWarmSnapshotCount = 0;
+        mTotalSnapshotCaptureNanos = 0;
+        mMaxSnapshotCaptureNanos = 0;
+        mTotalBitmapAllocatedBytes = 0;
+        mFrameCount = 0;
+        mTotalFrameUpdateNanos = 0;
+        mMaxFrameUpdateNanos = 0;
+        mLateFrameCount = 0;
+        mDroppedFrameCount = 0;
+        mTotalDurationNanos = 0;
+        mMaxDurationNanos = 0;
+    }
+
+    /**
+     * Write the aggregated metrics to the logs.
+     *
+     * @param tag is the tag of the log.
+     */
+    public void dump(String tag) {
+        Log.i(tag, toString());
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "FoldMetricsRecorder[folds=" + mFoldCount + ", warmSnapshots=" + mWarmSnapshotCount
+                + ", avgCaptureMs=" + toMillis(getAverageSnapshotCaptureNanos())
+                + ", maxCaptureMs=" + toMillis(mMaxSnapshotCaptureNanos)
+                + ", allocatedBytes=" + mTotalBitmapAllocatedBytes
+                + ", frames=" + mFrameCount
+                + ", avgUpdateMs=" + toMillis(getAverageFrameUpdateNanos())
+                + ", maxUpdateMs=" + toMillis(mMaxFrameUpdateNanos)
+                + ", lateFrames=" + mLateFrameCount + ", droppedFrames=" + mDroppedFrameCount
+                + ", avgDurationMs=" + toMillis(getAverageDurationNanos())
+                + ", maxDurationMs=" + toMillis(mMaxDurationNanos) + "]";
+    }
+
+    private static float toMillis(long nanos) {
+        return (float) nanos / NANOS_PER_MILLI;
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.Display;
+import android.view.View;
+
+/**
+ * Measures the folds of a layout and reports them to a {@link FoldMetricsListener}. Nothing is
+ * allocated per frame, the metrics being accumulated in a single reused instance.
+ */
+class FoldMetricsTracker {
+
+    private static final long DEFAULT_FRAME_INTERVAL_NANOS = 1000000000L / 60;
+
+    private final FoldMetricsListener mListener;
+    private final FoldMetrics mMetrics = new FoldMetrics();
+    private final FrameWatcher mFrameWatcher;
+    private BitmapPool mBitmapPool;
+    private long mStartNanos;
+    private long mPoolAllocatedBytes;
+    private boolean mTracking;
+
+    FoldMetricsTracker(FoldMetricsListener listener) {
+        mListener = listener;
+        // Choreographer only exists from API 16, late frames are not tracked below.
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            mFrameWatcher = new FrameWatcher(mMetrics);
+        } else {
+            mFrameWatcher = null;
+        }
+    }
+
+    /**
+     * Start to measure a fold, before its snapshot is captured.
+     *
+     * @param view       is the folding layout.
+     * @param bitmapPool is the pool used to capture the snapshot.
+     */
+    void start(View view, BitmapPool bitmapPool) {
+        mMetrics.reset();
+        mTracking = true;
+        mBitmapPool = bitmapPool;
+        mPoolAllocatedBytes = bitmapPool.getAllocatedByteCount();
+        mStartNanos = System.nanoTime();
+        if (mFrameWatcher != null) {
+            mFrameWatcher.start(getFrameIntervalNanos(view));
+        }
+    }
+
+    /**
+     * @return true if a fold is being measured.
+     */
+    boolean isTracking() {
+        return mTracking;
+    }
+
+    /**
+     * Stop measuring a fold which did not start, without reporting it.
+     */
+    void cancel() {
+        mTracking = false;
+        mBitmapPool = null;
+        if (mFrameWatcher != null) {
+            mFrameWatcher.stop();
+        }
+    }
+
+    /**
+     * Notify that the snapshot of the fold is ready.
+     *
+     * @param warm is true if it had been captured ahead of time.
+     */
+    void onSnapshotReady(boolean warm) {
+        if (mTracking) {
+            mMetrics.setSnapshot(warm, System.nanoTime() - mStartNanos,
+                    mBitmapPool.getAllocatedByteCount() - mPoolAllocatedBytes);
+        }
+    }
+
+    /**
+     * @param updateNanos is the time spent updating the views for one frame.
+     */
+    void onFrameUpdated(long updateNanos) {
+        if (mTracking) {
+            mMetrics.addFrameUpdate(updateNanos);
+        }
+    }
+
+    /**
+     * Stop measuring the fold and report it.
+     *
+     * @param unfolded is true if the layout ends unfolded.
+     */
+    void finish(boolean unfolded) {
+        if (!mTracking) {
+            return;
+        }
+        mTracking = false;
+        mBitmapPool = null;
+        if (mFrameWatcher != null) {
+            mFrameWatcher.stop();
+        }
+        mMetrics.setEnd(unfolded, System.nanoTime() - mStartNanos);
+        mListener.onFoldMetrics(mMetrics);
+    }
+
+    private static long getFrameIntervalNanos(View view) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1) {
+            Display display = view.getDisplay();
+            if (display != null && display.getRefreshRate() > 0) {
+                return (long) (1000000000L / display.getRefreshRate());
+            }
+        }
+        return DEFAULT_FRAME_INTERVAL_NANOS;
+    }
+
+    /**
+     * Follows the frames displayed while folding and counts those coming after more than one
+     * refresh interval.
+     */
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class FrameWatcher implements Choreographer.FrameCallback {
+
+        private final FoldMetrics mMetrics;
+        private long mFrameIntervalNanos;
+        private long mLastFrameTimeNanos;
+        private boolean mRunning;
+
+        FrameWatcher(FoldMetrics metrics) {
+            mMetrics = metrics;
+        }
+
+        void start(long frameIntervalNanos) {
+            mFrameIntervalNanos = frameIntervalNanos;
+            mLastFrameTimeNanos = 0;
+            if (!mRunning) {
+                mRunning = true;
+                Choreographer.getInstance().postFrameCallback(this);
+            }
+        }
+
+        void stop() {
+            if (mRunning) {
+                mRunning = false;
+                Choreographer.getInstance().removeFrameCallback(this);
+            }
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (!mRunning) {
+                return;
+            }
+            if (mLastFrameTimeNanos != 0) {
+                // Half an interval of tolerance absorbs the jitter of the vsync timestamps.
+                long skippedFrames = (frameTimeNanos - mLastFrameTimeNanos + mFrameIntervalNanos / 2) / mFrameIntervalNanos - 1;
+                if (skippedFrames > 0) {
+                    mMetrics.addLateFrame((int) skippedFrames);
+                }
+            }
+            mLastFrameTimeNanos = frameTimeNanos;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
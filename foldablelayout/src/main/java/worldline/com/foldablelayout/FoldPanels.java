@@ -0,0 +1,109 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+/**
+ * Geometry of the panels composing a fold, along the fold axis. The first panel has the size of
+ * the cover, and the detail view is the concatenation of all the panels. Panels are unfolded one
+ * after the other, each one during the part of the fold progress matching its size.
+ */
+class FoldPanels {
+
+    private int[] mSizes;
+    private int[] mOffsets;
+
+    /**
+     * Basic constructor.
+     *
+     * @param sizes are the sizes of the panels, at least two.
+     */
+    FoldPanels(int... sizes) {
+        setSizes(sizes);
+    }
+
+    /**
+     * Set the sizes of the panels.
+     *
+     * @param sizes are the sizes of the panels, at least two.
+     */
+    void setSizes(int... sizes) {
+        if (sizes.length < 2) {
+            throw new IllegalArgumentException("A fold needs at least two panels");
+        }
+        mSizes = sizes.clone();
+        mOffsets = new int[sizes.length + 1];
+        for (int i = 0; i < sizes.length; i++) {
+            mOffsets[i + 1] = mOffsets[i] + sizes[i];
+        }
+    }
+
+    int getCount() {
+        return mSizes.length;
+    }
+
+    int getSize(int panel) {
+        return mSizes[panel];
+    }
+
+    /**
+     * @param panel is the index of a panel, or the number of panels.
+     * @return the position of the start of the panel in the detail view.
+     */
+    int getOffset(int panel) {
+        return mOffsets[panel];
+    }
+
+    int getFoldedSize() {
+        return mSizes[0];
+    }
+
+    int getUnfoldedSize() {
+        return mOffsets[mSizes.length];
+    }
+
+    /**
+     * @param progress is the progress of the fold, from 0 when folded to 1 when unfolded.
+     * @return the size of the layout at this progress.
+     */
+    int getSizeAt(float progress) {
+        return (int) (getFoldedSize() + (getUnfoldedSize() - getFoldedSize()) * progress);
+    }
+
+    /**
+     * @param progress is the progress of the fold, from 0 when folded to 1 when unfolded.
+     * @return the panel being unfolded at this progress, from 1 to the number of panels minus one.
+     */
+    int getStage(float progress) {
+        float unfolded = getFoldedSize() + (getUnfoldedSize() - getFoldedSize()) * progress;
+        int stage = 1;
+        while (stage < mSizes.length - 1 && unfolded >= mOffsets[stage + 1]) {
+            stage++;
+        }
+        return stage;
+    }
+
+    /**
+     * @param progress is the progress of the fold, from 0 when folded to 1 when unfolded.
+     * @param stage    is the panel being unfolded.
+     * @return the progress of the panel, from 0 when folded to 1 when unfolded. It is not clamped,
+     * so that an overshooting fold keeps rotating.
+     */
+    float getStageProgress(float progress, int stage) {
+        float unfolded = getFoldedSize() + (getUnfoldedSize() - getFoldedSize()) * progress;
+        return (unfolded - mOffsets[stage]) / mSizes[stage];
+    }
+}
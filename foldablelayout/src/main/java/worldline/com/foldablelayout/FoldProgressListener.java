@@ -0,0 +1,36 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+/**
+ * Listener receiving the progress of each frame of a fold, to drive companion views in sync with
+ * it without animating them separately, see
+ * {@link FoldableLayout#addFoldProgressListener(FoldProgressListener)}.
+ */
+public interface FoldProgressListener {
+
+    /**
+     * Dispatch on each frame of a fold, whether animated or dragged, and when the layout is
+     * folded or unfolded without animation.
+     *
+     * @param foldableLayout is the layout being folded.
+     * @param progress       is the progress of the fold, from 0 when folded to 1 when unfolded. A
+     *                       spring may make it overshoot these bounds.
+     * @param unfolding      is true if the layout is heading to its unfolded state.
+     */
+    void onFoldProgress(FoldableLayout foldableLayout, float progress, boolean unfolding);
+}
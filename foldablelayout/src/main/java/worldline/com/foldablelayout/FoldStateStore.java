@@ -0,0 +1,142 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.Arrays;
+
+/**
+ * Fold states of the items of an adapter, keyed by their stable ids so that they survive item
+ * moves. Items are folded unless set otherwise, and only the ids of the unfolded items are kept,
+ * in a sorted array of primitives: reading and writing a state never allocates.
+ * The store is parcelable, so that it can be saved with the instance state of its owner.
+ */
+public class FoldStateStore implements Parcelable {
+
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private long[] mUnfoldedIds;
+    private int mSize;
+
+    /**
+     * Basic constructor.
+     */
+    public FoldStateStore() {
+        mUnfoldedIds = new long[DEFAULT_CAPACITY];
+    }
+
+    protected FoldStateStore(Parcel in) {
+        mUnfoldedIds = in.createLongArray();
+        mSize = mUnfoldedIds.length;
+        if (mUnfoldedIds.length == 0) {
+            mUnfoldedIds = new long[DEFAULT_CAPACITY];
+        }
+    }
+
+    /**
+     * @param id is the stable id of the item.
+     * @return true if the item is folded, which is the case of any item never set.
+     */
+    public boolean isFolded(long id) {
+        return Arrays.binarySearch(mUnfoldedIds, 0, mSize, id) < 0;
+    }
+
+    /**
+     * Set the fold state of an item.
+     *
+     * @param id     is the stable id of the item.
+     * @param folded is true if the item is folded.
+     */
+    public void setFolded(long id, boolean folded) {
+        int index = Arrays.binarySearch(mUnfoldedIds, 0, mSize, id);
+        if (folded && index >= 0) {
+            System.arraycopy(mUnfoldedIds, index + 1, mUnfoldedIds, index, mSize - index - 1);
+            mSize--;
+        } else if (!folded && index < 0) {
+            index = -index - 1;
+            if (mSize == mUnfoldedIds.length) {
+                mUnfoldedIds = Arrays.copyOf(mUnfoldedIds, mSize * 2);
+            }
+            System.arraycopy(mUnfoldedIds, index, mUnfoldedIds, index + 1, mSize - index);
+            mUnfoldedIds[index] = id;
+            mSize++;
+        }
+    }
+
+    /**
+     * Set the layout displaying an item in the stored state of the item, without animation.
+     *
+     * @param id             is the stable id of the item.
+     * @param foldableLayout is the layout displaying the item.
+     */
+    public void apply(long id, FoldableLayout foldableLayout) {
+        if (isFolded(id)) {
+            foldableLayout.foldWithoutAnimation();
+        } else {
+            foldableLayout.unfoldWithoutAnimation();
+        }
+    }
+
+    /**
+     * @return the number of unfolded items.
+     */
+    public int getUnfoldedCount() {
+        return mSize;
+    }
+
+    /**
+     * @param index is the index of an unfolded item, from 0 to {@link #getUnfoldedCount()} excluded.
+     * @return the stable id of the unfolded item, the ids being sorted in ascending order.
+     */
+    public long getUnfoldedId(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Invalid index " + index + ", size is " + mSize);
+        }
+        return mUnfoldedIds[index];
+    }
+
+    /**
+     * Fold all the items.
+     */
+    public void clear() {
+        mSize = 0;
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeLongArray(Arrays.copyOf(mUnfoldedIds, mSize));
+    }
+
+    public static final Creator<FoldStateStore> CREATOR = new Creator<FoldStateStore>() {
+        @Override
+        public FoldStateStore createFromParcel(Parcel in) {
+            return new FoldStateStore(in);
+        }
+
+        @Override
+        public FoldStateStore[] newArray(int size) {
+            return new FoldStateStore[size];
+        }
+    };
+}
@@ -20,46 +20,166 @@ import android.animation.Animator;
 import android.animation.TimeInterpolator;
 import android.animation.ValueAnimator;
 import android.content.Context;
+import android.content.res.TypedArray;
 import android.graphics.Bitmap;
-import android.graphics.Matrix;
 import android.graphics.Rect;
-import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.Parcel;
+import android.os.Parcelable;
 import android.support.annotation.DimenRes;
 import android.support.annotation.LayoutRes;
 import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
+import android.view.ViewConfiguration;
 import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.view.ViewTreeObserver;
 import android.view.animation.AccelerateDecelerateInterpolator;
+import android.view.animation.AnimationUtils;
+import android.widget.FrameLayout;
 import android.widget.ImageView;
 import android.widget.RelativeLayout;
 
+import java.util.concurrent.Executor;
+
 
 /**
- * Layout which allow a foldable animation between two other layouts. The only limitation of this
- * layout is than the big view should be exactly twice bigger in height than the small view {@link #setupViews(int, int, int, Context)}.
+ * Layout which allow a foldable animation between two other layouts. The big view is folded in
+ * panels, the first one having the height of the small view {@link #setupViews(int, int, int, Context)}.
+ * By default there are two panels as high as the small view, see {@link #setPanelCount(int)} and
+ * {@link #setPanelSizes(int...)}: the big view should be exactly as high as all the panels.
+ * With {@link #ORIENTATION_HORIZONTAL}, the same applies to widths and the big view unfolds to the right.
  */
 public class FoldableLayout extends RelativeLayout {
 
-    private static final int ANIMATION_DURATION = 600;
+    /**
+     * The height of the layout follows the animation, frame by frame. Each frame requests a new
+     * layout pass of the parent.
+     */
+    public static final int HEIGHT_ANIMATION_EACH_FRAME = 0;
+
+    /**
+     * The height of the layout is set to its largest value when the animation starts, and to its
+     * final value when it ends. Frames only redraw the fold, without requesting any layout pass.
+     */
+    public static final int HEIGHT_ANIMATION_ON_END = 1;
+
+    /**
+     * The detail view unfolds downwards from the cover, rotating around a horizontal hinge.
+     */
+    public static final int ORIENTATION_VERTICAL = 0;
+
+    /**
+     * The detail view unfolds to the right of the cover, rotating around a vertical hinge.
+     */
+    public static final int ORIENTATION_HORIZONTAL = 1;
+
+    /**
+     * The detail view is captured at full precision.
+     */
+    public static final int SNAPSHOT_QUALITY_FULL = 0;
+
+    /**
+     * The detail view is captured at full size in a {@link android.graphics.Bitmap.Config#RGB_565}
+     * bitmap, which takes half the memory and drops the transparency.
+     */
+    public static final int SNAPSHOT_QUALITY_RGB_565 = 1;
+
+    /**
+     * The detail view is captured at half its width and height, which takes a quarter of the
+     * memory, and scaled up with bilinear filtering.
+     */
+    public static final int SNAPSHOT_QUALITY_DOWNSCALED = 2;
+
+    private static final int SNAPSHOT_DOWNSCALE_FACTOR = 2;
+
+    private static final int DEFAULT_ANIMATION_DURATION = 600;
+
+    private static final long DEFAULT_SNAPSHOT_DEADLINE = 32;
+
+    private static final float DEFAULT_SPRING_DAMPING_RATIO = 0.5f;
+
+    private static final FoldProgressListener[] NO_PROGRESS_LISTENERS = new FoldProgressListener[0];
 
     protected RelativeLayout mContentLayout;
     protected ImageView mImageViewBelow;
     protected ImageView mImageViewAbove;
+    protected ImageView mImageViewAboveFront;
+    protected ImageView mImageViewBelowShadow;
+    protected ImageView mImageViewAboveShadow;
     protected ViewGroup mViewGroupCover;
     protected ViewGroup mViewGroupDetail;
     protected View mRootView;
-    protected Bitmap mDetailBitmap;
-    protected Bitmap mDetailTopBitmap;
-    protected Bitmap mDetailBottomBitmap;
+    protected Snapshot mDetailSnapshot;
+    protected SnapshotDrawable mDetailTopDrawable;
+    protected SnapshotDrawable mDetailFrontDrawable;
+    protected SnapshotDrawable mDetailRotatedDrawable;
     protected int mCoverHeight;
+    private boolean mCoverWrapContent = false;
+    private int mDetailLayoutId;
+    private boolean mDetailInflating = false;
+    private OnDetailInflatedListener mOnDetailInflatedListener;
+    protected FoldPanels mPanels = new FoldPanels(0, 0);
     private boolean mIsFolded = true;
     private boolean mIsAnimating = false;
-    private Matrix mMatrix;
+    private BitmapPool mBitmapPool;
+    private SnapshotStrategy mSnapshotStrategy;
+    private int mSnapshotQuality = SNAPSHOT_QUALITY_FULL;
+    private boolean mPrefetchEnabled = false;
+    private boolean mPrefetchScheduled = false;
+    private boolean mSnapshotDirty = false;
+    private boolean mLastSnapshotWarm = false;
+    private boolean mSnapshotEvicted = false;
+    private final Rect mSnapshotDirtyRect = new Rect();
+    private final Rect mSnapshotRefreshRect = new Rect();
+    private SnapshotRetention mSnapshotRetention = SnapshotRetention.getDefault();
+    private final SnapshotRasterizer mRasterizer = new SnapshotRasterizer();
+    private Executor mSnapshotExecutor;
+    private long mSnapshotDeadline = DEFAULT_SNAPSHOT_DEADLINE;
+    private boolean mFoldPending = false;
+    private boolean mPendingUnfold;
+    private boolean mSnapshotAwaited = false;
+    private boolean mDetached = false;
+    private int mHeightAnimationMode = HEIGHT_ANIMATION_EACH_FRAME;
+    private int mOrientation = ORIENTATION_VERTICAL;
+    private boolean mHardwareLayersEnabled = true;
+    private boolean mHardwareLayersActive = false;
+    private int mCoverLayerType;
+    private int mBelowLayerType;
+    private ValueAnimator mAnimator;
+    private boolean mUnfolding;
+    private boolean mAnimationCanceled;
+    private float mAnimationStart;
+    private float mAnimationEnd;
+    private boolean mAboveShowsDetail;
+    private int mPanelCount = 2;
+    private int[] mPanelSizes;
+    private int mStage;
+    private float mFoldProgress;
+    private Drawable mBelowShadow;
+    private Drawable mAboveShadow;
+    private TimeInterpolator mShadowInterpolator;
+    private int mMaxShadowAlpha = 255;
+    private boolean mDragEnabled = false;
+    private boolean mDragTracking;
+    private boolean mDragging;
+    private float mDragDownX;
+    private float mDragDownY;
+    private float mDragStartProgress;
+    private int mTouchSlop;
+    private int mMinimumFlingVelocity;
+    private VelocityTracker mVelocityTracker;
+    private FoldMetricsTracker mMetricsTracker;
+    // Copied on write, so that frames dispatch to it without allocating.
+    private FoldProgressListener[] mProgressListeners = NO_PROGRESS_LISTENERS;
+    private boolean mLayoutDeferred;
+    private boolean mLayoutPending;
     private FoldListener mFoldListener = new FoldListener() {
         @Override
         public void onUnFoldStart() {
@@ -82,7 +202,108 @@ public class FoldableLayout extends RelativeLayout {
         }
     };
 
-    private final TimeInterpolator mTimeInterpolator = new AccelerateDecelerateInterpolator();
+    private TimeInterpolator mTimeInterpolator = new AccelerateDecelerateInterpolator();
+    private long mAnimationDuration = DEFAULT_ANIMATION_DURATION;
+    private SpringInterpolator mSpringInterpolator;
+
+    private final ValueAnimator.AnimatorUpdateListener mAnimatorUpdateListener = new ValueAnimator.AnimatorUpdateListener() {
+        @Override
+        public void onAnimationUpdate(ValueAnimator animation) {
+            // The animated value is not read to avoid boxing.
+            applyFoldProgress(mAnimationStart + (mAnimationEnd - mAnimationStart) * animation.getAnimatedFraction());
+        }
+    };
+
+    private final Animator.AnimatorListener mAnimatorListener = new Animator.AnimatorListener() {
+        @Override
+        public void onAnimationStart(Animator animation) {
+
+        }
+
+        @Override
+        public void onAnimationEnd(Animator animation) {
+            if (mAnimationCanceled) {
+                finishFold(mFoldProgress >= 0.5);
+            } else {
+                finishFold(mUnfolding);
+            }
+        }
+
+        @Override
+        public void onAnimationCancel(Animator animation) {
+            mAnimationCanceled = true;
+        }
+
+        @Override
+        public void onAnimationRepeat(Animator animation) {
+
+        }
+    };
+
+    /**
+     * Schedule the capture of the snapshot once the current frame is drawn and the thread is idle.
+     */
+    private final ViewTreeObserver.OnPreDrawListener mPrefetchPreDrawListener = new ViewTreeObserver.OnPreDrawListener() {
+        @Override
+        public boolean onPreDraw() {
+            if (!mPrefetchScheduled && needsPrefetch()) {
+                mPrefetchScheduled = true;
+                Looper.myQueue().addIdleHandler(mPrefetchIdleHandler);
+            }
+            return true;
+        }
+    };
+
+    private final MessageQueue.IdleHandler mPrefetchIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mPrefetchScheduled = false;
+            if (needsPrefetch() && !rasterizeSnapshot()) {
+                prepareFold();
+            }
+            return false;
+        }
+    };
+
+    private final SnapshotRasterizer.Callback mRasterizerCallback = new SnapshotRasterizer.Callback() {
+        @Override
+        public void onRasterized(Snapshot snapshot) {
+            if (mIsAnimating || mDetached) {
+                // A fold started meanwhile with its own snapshot, or the layout is not displayed anymore.
+                snapshot.release();
+                return;
+            }
+            // Regions invalidated while the snapshot was rasterized are refreshed before it is used.
+            mSnapshotRefreshRect.set(mSnapshotDirtyRect);
+            releaseSnapshot();
+            mSnapshotDirtyRect.set(mSnapshotRefreshRect);
+            mDetailSnapshot = snapshot;
+            mSnapshotDirty = false;
+            if (mFoldPending) {
+                startPendingFold();
+            } else {
+                retainSnapshot();
+            }
+        }
+    };
+
+    private final Runnable mSnapshotDeadlineRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (mFoldPending) {
+                // The pixels are late, the detail view is captured on the UI thread instead.
+                mRasterizer.cancel();
+                startPendingFold();
+            }
+        }
+    };
+
+    private final OnLayoutChangeListener mDetailLayoutChangeListener = new OnLayoutChangeListener() {
+        @Override
+        public void onLayoutChange(View v, int left, int top, int right, int bottom, int oldLeft, int oldTop, int oldRight, int oldBottom) {
+            invalidateSnapshot();
+        }
+    };
 
     /**
      * Basic constructor.
@@ -103,6 +324,7 @@ public class FoldableLayout extends RelativeLayout {
     public FoldableLayout(Context context, AttributeSet attrs) {
         super(context, attrs);
         setupView(context);
+        readAttributes(context, attrs, 0, 0);
     }
 
     /**
@@ -115,6 +337,7 @@ public class FoldableLayout extends RelativeLayout {
     public FoldableLayout(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         setupView(context);
+        readAttributes(context, attrs, defStyleAttr, 0);
     }
 
     /**
@@ -128,6 +351,7 @@ public class FoldableLayout extends RelativeLayout {
     public FoldableLayout(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
         super(context, attrs, defStyleAttr, defStyleRes);
         setupView(context);
+        readAttributes(context, attrs, defStyleAttr, defStyleRes);
     }
 
     /**
@@ -139,305 +363,1699 @@ public class FoldableLayout extends RelativeLayout {
         mFoldListener = foldListener;
     }
 
-    public View getCoverView() {
-        return mViewGroupCover;
-    }
-
-    public View getDetailView() {
-        return mViewGroupDetail;
+    /**
+     * Add a listener to the progress of the folds, called from the frame updates of the layout.
+     * Listeners may be added or removed while being dispatched.
+     *
+     * @param progressListener is the listener to add, added only once.
+     */
+    public void addFoldProgressListener(FoldProgressListener progressListener) {
+        FoldProgressListener[] listeners = mProgressListeners;
+        for (FoldProgressListener listener : listeners) {
+            if (listener == progressListener) {
+                return;
+            }
+        }
+        FoldProgressListener[] newListeners = new FoldProgressListener[listeners.length + 1];
+        System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+        newListeners[listeners.length] = progressListener;
+        mProgressListeners = newListeners;
     }
 
-    private void setupView(Context context) {
-        setClipChildren(false);
-        mRootView = LayoutInflater.from(context).inflate(R.layout.foldable_layout, this, true);
-        mContentLayout = (RelativeLayout) findViewById(R.id.foldable_content_view);
-        mImageViewBelow = (ImageView) findViewById(R.id.foldable_layout_below_bitmap);
-        mImageViewAbove = (ImageView) findViewById(R.id.foldable_layout_above_bitmap);
-        mMatrix = new Matrix();
-        mMatrix.postScale(1, -1);
+    /**
+     * Remove a listener added with {@link #addFoldProgressListener(FoldProgressListener)}.
+     *
+     * @param progressListener is the listener to remove.
+     */
+    public void removeFoldProgressListener(FoldProgressListener progressListener) {
+        FoldProgressListener[] listeners = mProgressListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == progressListener) {
+                if (listeners.length == 1) {
+                    mProgressListeners = NO_PROGRESS_LISTENERS;
+                } else {
+                    FoldProgressListener[] newListeners = new FoldProgressListener[listeners.length - 1];
+                    System.arraycopy(listeners, 0, newListeners, 0, i);
+                    System.arraycopy(listeners, i + 1, newListeners, i, listeners.length - i - 1);
+                    mProgressListeners = newListeners;
+                }
+                return;
+            }
+        }
     }
 
-    public boolean isFolded() {
-        return mIsFolded;
+    /**
+     * Measure each fold, from the capture of the detail view to its end, and report it to the
+     * given listener. Nothing is measured by default.
+     *
+     * @param metricsListener is the listener to report to, or null to stop measuring.
+     */
+    public void setFoldMetricsListener(FoldMetricsListener metricsListener) {
+        if (mMetricsTracker != null) {
+            if (mIsAnimating) {
+                mMetricsTracker.finish(mUnfolding);
+            } else {
+                // A fold waiting for its snapshot is not reported.
+                mMetricsTracker.cancel();
+            }
+        }
+        mMetricsTracker = metricsListener != null ? new FoldMetricsTracker(metricsListener) : null;
     }
 
     /**
-     * Init the two views which will compose the foldable sides. To ensure nice animations,
-     * the big view height should be exactly twice bigger than the small view height.
+     * Set the pool used to store the snapshots of the detail view. By default all the layouts share
+     * {@link BitmapPool#getDefault(Context)}.
      *
-     * @param coverLayoutId  is the "small" view which is used as the cover.
-     * @param detailLayoutId is the "big" view which is used as the detail.
-     * @param coverHeight is the height of the cover view.
-     * @param context        is a valid context.
+     * @param bitmapPool is the pool to use.
      */
-    public void setupViews(@LayoutRes int coverLayoutId, @LayoutRes int detailLayoutId, @DimenRes int coverHeight, Context context) {
-        mViewGroupCover = (ViewGroup) LayoutInflater.from(context).inflate(coverLayoutId, mContentLayout, false);
-        mViewGroupDetail = (ViewGroup) LayoutInflater.from(context).inflate(detailLayoutId, mContentLayout, false);
-        mContentLayout.addView(mViewGroupCover);
-        mContentLayout.addView(mViewGroupDetail);
-        mViewGroupDetail.setVisibility(GONE);
-        mCoverHeight = context.getResources().getDimensionPixelSize(coverHeight);
+    public void setBitmapPool(BitmapPool bitmapPool) {
+        mBitmapPool = bitmapPool;
     }
 
-    @Override
-    public boolean onTouchEvent(MotionEvent event) {
-        if (mIsAnimating) {
-            return false;
-        } else {
-            return super.onTouchEvent(event);
-        }
+    public BitmapPool getBitmapPool() {
+        return mBitmapPool;
     }
 
-    private void clearImageView(ImageView imageView) {
-        setImageBackground(imageView, null);
-        imageView.setImageDrawable(null);
+    /**
+     * Set how the detail view is captured before being animated. By default, the detail view is
+     * recorded into a {@link android.graphics.Picture} on API 23 and above, and copied from its
+     * drawing cache on older API levels.
+     *
+     * @param snapshotStrategy is the strategy to use.
+     */
+    public void setSnapshotStrategy(SnapshotStrategy snapshotStrategy) {
+        mSnapshotStrategy = snapshotStrategy;
     }
 
-    private void setImageBackground(ImageView imageView, Drawable drawable) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
-            imageView.setBackground(drawable);
-        } else {
-            imageView.setBackgroundDrawable(drawable);
-        }
+    public SnapshotStrategy getSnapshotStrategy() {
+        return mSnapshotStrategy;
     }
 
     /**
-     * Fold the layout without animations.
+     * Set the precision of the snapshots of the detail view, which is only visible while it
+     * rotates, to lower their memory on low-memory devices. It replaces the snapshot strategy.
+     *
+     * @param snapshotQuality is either {@link #SNAPSHOT_QUALITY_FULL}, the default,
+     *                        {@link #SNAPSHOT_QUALITY_RGB_565} or {@link #SNAPSHOT_QUALITY_DOWNSCALED}.
      */
-    public void foldWithoutAnimation() {
-        if (!mIsFolded && !mIsAnimating) {
-            mIsFolded = true;
-            clearImageView(mImageViewAbove);
-            clearImageView(mImageViewBelow);
-            mViewGroupCover.setVisibility(VISIBLE);
-            mViewGroupDetail.setVisibility(GONE);
-            if (FoldableLayout.this.getLayoutParams() != null) {
-                FoldableLayout.this.getLayoutParams().height = mCoverHeight;
-            }
-            requestLayout();
+    public void setSnapshotQuality(int snapshotQuality) {
+        mSnapshotQuality = snapshotQuality;
+        switch (snapshotQuality) {
+            case SNAPSHOT_QUALITY_RGB_565:
+                mSnapshotStrategy = new BitmapSnapshotStrategy(Bitmap.Config.RGB_565, 1);
+                break;
+            case SNAPSHOT_QUALITY_DOWNSCALED:
+                mSnapshotStrategy = new BitmapSnapshotStrategy(Bitmap.Config.ARGB_8888, SNAPSHOT_DOWNSCALE_FACTOR);
+                break;
+            default:
+                mSnapshotStrategy = createDefaultSnapshotStrategy();
+                break;
         }
+        invalidateSnapshot();
     }
 
-    /**
-     * Unfold the layout without animations.
-     */
-    public void unfoldWithoutAnimation() {
-        if (mIsFolded && !mIsAnimating) {
-            mViewGroupCover.setVisibility(GONE);
-            mViewGroupDetail.setVisibility(VISIBLE);
-            clearImageView(mImageViewAbove);
-            clearImageView(mImageViewBelow);
-            if (FoldableLayout.this.getLayoutParams() != null) {
-                FoldableLayout.this.getLayoutParams().height = mCoverHeight * 2;
-            }
-            requestLayout();
-            mIsFolded = false;
-        }
+    public int getSnapshotQuality() {
+        return mSnapshotQuality;
     }
 
     /**
-     * Fold the layout with animations.
+     * Set the retention bounding the number of layouts keeping their snapshot between two folds. By
+     * default all the layouts share {@link SnapshotRetention#getDefault()}.
+     *
+     * @param snapshotRetention is the retention to use.
      */
-    public void foldWithAnimation() {
+    public void setSnapshotRetention(SnapshotRetention snapshotRetention) {
         if (!mIsAnimating) {
-            computeBitmaps();
-            final Bitmap rotatedAboveBitmap;
-            rotatedAboveBitmap = Bitmap.createBitmap(mDetailBottomBitmap, 0, 0, mDetailBottomBitmap.getWidth(), mDetailBottomBitmap.getHeight(), mMatrix, true);
-            final Drawable belowShadow;
-            final Drawable aboveShadow;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                belowShadow = getResources().getDrawable(R.drawable.shadow, null);
-                aboveShadow = getResources().getDrawable(R.drawable.shadow, null);
-            } else {
-                belowShadow = getResources().getDrawable(R.drawable.shadow);
-                aboveShadow = getResources().getDrawable(R.drawable.shadow);
-            }
+            releaseSnapshot();
+        }
+        mSnapshotRetention = snapshotRetention;
+    }
 
-            ValueAnimator animator;
-            animator = ValueAnimator.ofFloat(-180, 0);
+    public SnapshotRetention getSnapshotRetention() {
+        return mSnapshotRetention;
+    }
 
-            final int initialHeight = this.getHeight();
+    /**
+     * Rasterize the snapshots of the detail view on the given executor, for instance a thread pool
+     * shared with the rest of the app. The detail view is only recorded on the UI thread, and an
+     * animation starts once its pixels are ready, or after the deadline set with
+     * {@link #setSnapshotDeadline(long)} by capturing it on the UI thread. Only the snapshots drawn
+     * into bitmaps are rasterized on the executor, pictures being rasterized by the renderer. Snapshots
+     * are rasterized on the UI thread by default.
+     *
+     * @param snapshotExecutor is the executor to use, or null to rasterize on the UI thread.
+     */
+    public void setSnapshotExecutor(Executor snapshotExecutor) {
+        mSnapshotExecutor = snapshotExecutor;
+    }
 
-            animator.setInterpolator(mTimeInterpolator);
-            animator.setDuration(ANIMATION_DURATION);
-            animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                private boolean mReplaceDone = false;
+    public Executor getSnapshotExecutor() {
+        return mSnapshotExecutor;
+    }
 
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    if (animation.getAnimatedFraction() >= 0.5 && !mReplaceDone) {
-                        mReplaceDone = true;
-                        clearImageView(mImageViewAbove);
-                        mViewGroupCover.setVisibility(VISIBLE);
-                    }
-                    mContentLayout.setRotationX((Float) animation.getAnimatedValue());
-                    belowShadow.setAlpha((int) (255 * animation.getAnimatedFraction()));
-                    aboveShadow.setAlpha((int) (255 * animation.getAnimatedFraction()));
-                    FoldableLayout.this.getLayoutParams().height = (int) (initialHeight - initialHeight / 2 * animation.getAnimatedFraction());
-                    FoldableLayout.this.requestLayout();
-                }
-            });
-            animator.addListener(new Animator.AnimatorListener() {
-                @Override
-                public void onAnimationStart(Animator animation) {
-                    mFoldListener.onFoldStart();
-                    mIsAnimating = true;
-                    mContentLayout.setRotationX(180);
-                    mViewGroupDetail.setVisibility(GONE);
-                    mImageViewAbove.setImageDrawable(belowShadow);
-                    setImageBackground(mImageViewAbove, new BitmapDrawable(getResources(), rotatedAboveBitmap));
-                    setImageBackground(mImageViewBelow, new BitmapDrawable(getResources(), mDetailTopBitmap));
-                    mImageViewBelow.setImageDrawable(aboveShadow);
-                }
+    /**
+     * Set how long an animation waits for the snapshot rasterized on the executor set with
+     * {@link #setSnapshotExecutor(Executor)} before capturing the detail view on the UI thread.
+     *
+     * @param snapshotDeadline is the deadline in milliseconds, 32 by default.
+     */
+    public void setSnapshotDeadline(long snapshotDeadline) {
+        mSnapshotDeadline = snapshotDeadline;
+    }
 
-                @Override
-                public void onAnimationEnd(Animator animation) {
-                    clearImageView(mImageViewBelow);
-                    mIsFolded = true;
-                    mIsAnimating = false;
-                    mFoldListener.onFoldEnd();
-                }
+    public long getSnapshotDeadline() {
+        return mSnapshotDeadline;
+    }
 
-                @Override
-                public void onAnimationCancel(Animator animation) {
-                    mIsAnimating = false;
-                }
+    /**
+     * Set how the height of the layout is animated.
+     *
+     * @param heightAnimationMode is either {@link #HEIGHT_ANIMATION_EACH_FRAME}, the default, or
+     *                            {@link #HEIGHT_ANIMATION_ON_END}.
+     */
+    public void setHeightAnimationMode(int heightAnimationMode) {
+        mHeightAnimationMode = heightAnimationMode;
+    }
 
-                @Override
-                public void onAnimationRepeat(Animator animation) {
+    public int getHeightAnimationMode() {
+        return mHeightAnimationMode;
+    }
 
-                }
-            });
-            animator.start();
+    /**
+     * Set the direction in which the detail view unfolds. Horizontally, the panel sizes are widths,
+     * and the width of the layout is animated instead of its height. It should be set before
+     * {@link #setupViews(int, int, int, Context)}, while no animation is running.
+     *
+     * @param orientation is either {@link #ORIENTATION_VERTICAL}, the default, or {@link #ORIENTATION_HORIZONTAL}.
+     */
+    public void setOrientation(int orientation) {
+        if (mOrientation == orientation) {
+            return;
         }
+        mOrientation = orientation;
+        mDetailRotatedDrawable.setFlippedHorizontally(orientation == ORIENTATION_HORIZONTAL);
+        // The gradient of the shadow follows the direction of the fold.
+        mBelowShadow = createShadow();
+        mAboveShadow = createShadow();
+    }
+
+    public int getOrientation() {
+        return mOrientation;
     }
 
     /**
-     * Unfold the view with animations.
+     * Render the cover and the static half on hardware layers while animating, so that each frame
+     * only composes them instead of redrawing them. The shadows are drawn by views outside of the
+     * layers, whose opacity does not redraw them. The original layer types are
+     * restored when the animation ends or is cancelled. Enabled by default.
+     *
+     * @param hardwareLayersEnabled is true to use hardware layers during animations.
      */
-    public void unfoldWithAnimation() {
-        if (!mIsAnimating) {
-            computeBitmaps();
-            final Bitmap rotatedAboveBitmap;
-            rotatedAboveBitmap = Bitmap.createBitmap(mDetailBottomBitmap, 0, 0, mDetailBottomBitmap.getWidth(), mDetailBottomBitmap.getHeight(), mMatrix, true);
-            ValueAnimator animator;
-            animator = ValueAnimator.ofFloat(0, -180);
-
-            mContentLayout.setPivotY(mCoverHeight);
-            mContentLayout.setPivotX(mViewGroupCover.getWidth() / 2);
+    public void setHardwareLayersEnabled(boolean hardwareLayersEnabled) {
+        mHardwareLayersEnabled = hardwareLayersEnabled;
+    }
 
-            final int initialHeight = mCoverHeight;
+    public boolean isHardwareLayersEnabled() {
+        return mHardwareLayersEnabled;
+    }
 
-            final Drawable belowShadow;
-            final Drawable aboveShadow;
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                belowShadow = getResources().getDrawable(R.drawable.shadow, null);
-                aboveShadow = getResources().getDrawable(R.drawable.shadow, null);
+    /**
+     * Enable the capture of the detail view ahead of time, when the layout is idle, so that the
+     * next animation starts without capturing it. The snapshot is kept between animations until
+     * the detail view is laid out again, {@link #invalidateSnapshot()} is called, the layout is
+     * detached, or its {@link SnapshotRetention} releases it.
+     *
+     * @param prefetchEnabled is true to capture the snapshot ahead of time.
+     */
+    public void setPrefetchEnabled(boolean prefetchEnabled) {
+        if (mPrefetchEnabled == prefetchEnabled) {
+            return;
+        }
+        mPrefetchEnabled = prefetchEnabled;
+        if (getWindowToken() != null) {
+            if (prefetchEnabled) {
+                getViewTreeObserver().addOnPreDrawListener(mPrefetchPreDrawListener);
             } else {
-                belowShadow = getResources().getDrawable(R.drawable.shadow);
-                aboveShadow = getResources().getDrawable(R.drawable.shadow);
+                stopPrefetch();
             }
+        }
+        if (!prefetchEnabled && !mIsAnimating) {
+            releaseSnapshot();
+        }
+    }
 
-            animator.setInterpolator(mTimeInterpolator);
-            animator.setDuration(ANIMATION_DURATION);
-            animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-                private boolean mReplaceDone = false;
-
-                @Override
-                public void onAnimationUpdate(ValueAnimator animation) {
-                    if (animation.getAnimatedFraction() >= 0.5 && !mReplaceDone) {
-                        mReplaceDone = true;
-                        mViewGroupCover.setVisibility(GONE);
-                        setImageBackground(mImageViewAbove, new BitmapDrawable(getResources(), rotatedAboveBitmap));
-                        mImageViewAbove.setImageDrawable(aboveShadow);
-                    }
-                    mContentLayout.setRotationX((Float) animation.getAnimatedValue());
-
-                    belowShadow.setAlpha((int) (255 * (1 - animation.getAnimatedFraction())));
-                    aboveShadow.setAlpha((int) (255 * (1 - animation.getAnimatedFraction())));
+    public boolean isPrefetchEnabled() {
+        return mPrefetchEnabled;
+    }
 
-                    FoldableLayout.this.getLayoutParams().height = (int) (initialHeight + initialHeight * animation.getAnimatedFraction());
-                    FoldableLayout.this.requestLayout();
+    /**
+     * Capture the detail view now, so that the next animation does not have to. Nothing is done
+     * if a valid snapshot is already available or if an animation is running.
+     */
+    public void prepareFold() {
+        if (!mIsAnimating && mViewGroupDetail != null && (mDetailSnapshot == null || mSnapshotDirty)) {
+            releaseSnapshot();
+            mDetailSnapshot = computeSnapshot(mViewGroupDetail);
+            mSnapshotDirty = false;
+            retainSnapshot();
+        } else if (!mIsAnimating) {
+            refreshSnapshot();
+        }
+    }
 
-                }
-            });
-            animator.addListener(new Animator.AnimatorListener() {
-                @Override
-                public void onAnimationStart(Animator animation) {
-                    mFoldListener.onUnFoldStart();
-                    mIsAnimating = true;
-                    setImageBackground(mImageViewBelow, new BitmapDrawable(getResources(), mDetailTopBitmap));
-                    mImageViewBelow.setImageDrawable(belowShadow);
-                }
+    /**
+     * Notify that the content of the detail view changed, for instance when an image is loaded
+     * asynchronously, so that the snapshot captured ahead of time is not used anymore. Prefer
+     * {@link #invalidateSnapshot(View)} when the change is limited to a descendant.
+     */
+    public void invalidateSnapshot() {
+        mSnapshotDirty = true;
+        mSnapshotEvicted = false;
+        if (!mFoldPending) {
+            mRasterizer.cancel();
+        }
+        if (!mIsAnimating) {
+            releaseSnapshot();
+        }
+    }
 
-                @Override
-                public void onAnimationEnd(Animator animation) {
-                    mViewGroupDetail.setVisibility(VISIBLE);
-                    clearImageView(mImageViewBelow);
-                    clearImageView(mImageViewAbove);
-                    mContentLayout.setRotationX(0);
-                    mIsFolded = false;
-                    mIsAnimating = false;
-                    mFoldListener.onUnFoldEnd();
-                }
+    /**
+     * Notify that the content of a descendant of the detail view changed, for instance when its
+     * image is loaded asynchronously. Only the region of the descendant is drawn again into the
+     * existing snapshot: right away for the visible panels if a fold is running, so that the new
+     * content appears during the fold, and before the next fold otherwise. Snapshots which are not
+     * bitmaps are recorded again as a whole.
+     *
+     * @param descendant is the view which changed, the detail view itself or one of its descendants.
+     */
+    public void invalidateSnapshot(View descendant) {
+        if (mViewGroupDetail == null || descendant == mViewGroupDetail) {
+            invalidateSnapshot();
+            return;
+        }
+        if (mSnapshotDirty || (mDetailSnapshot == null && !mRasterizer.isPending())) {
+            // The next capture includes the change anyway.
+            return;
+        }
+        mSnapshotRefreshRect.set(0, 0, descendant.getWidth(), descendant.getHeight());
+        mViewGroupDetail.offsetDescendantRectToMyCoords(descendant, mSnapshotRefreshRect);
+        mSnapshotDirtyRect.union(mSnapshotRefreshRect);
+        mSnapshotEvicted = false;
+        if (mIsAnimating) {
+            refreshSnapshot();
+        }
+    }
 
-                @Override
-                public void onAnimationCancel(Animator animation) {
-                    mIsAnimating = false;
-                }
+    /**
+     * Stop any fold, landing in its final state, and release the snapshot of the detail view. To be
+     * called when the layout is recycled, so that it holds no memory while it is not displayed.
+     */
+    public void recycle() {
+        endAnimation();
+        mRasterizer.cancel();
+        releaseSnapshot();
+        mSnapshotDirty = false;
+    }
 
-                @Override
-                public void onAnimationRepeat(Animator animation) {
+    /**
+     * @return true if the last animation used a snapshot captured ahead of time, false if it had to capture it.
+     */
+    public boolean isLastSnapshotWarm() {
+        return mLastSnapshotWarm;
+    }
 
-                }
-            });
-            animator.start();
-        }
+    public View getCoverView() {
+        return mViewGroupCover;
     }
 
-    private void computeBitmaps() {
-        mDetailBitmap = computeBitmap(mViewGroupDetail);
-        mDetailTopBitmap = Bitmap.createBitmap(mDetailBitmap, 0, 0, mDetailBitmap.getWidth(), mDetailBitmap.getHeight() / 2);
-        mDetailBottomBitmap = Bitmap.createBitmap(mDetailBitmap, 0, mDetailBitmap.getHeight() / 2, mDetailBitmap.getWidth(), mDetailBitmap.getHeight() / 2);
+    /**
+     * @return the detail view, or null if it is inflated lazily and has not been inflated yet.
+     */
+    public View getDetailView() {
+        return mViewGroupDetail;
     }
 
-    @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    private void setupView(Context context) {
+        setClipChildren(false);
+        mRootView = LayoutInflater.from(context).inflate(R.layout.foldable_layout, this, true);
+        mContentLayout = (RelativeLayout) findViewById(R.id.foldable_content_view);
+        mImageViewBelow = (ImageView) findViewById(R.id.foldable_layout_below_bitmap);
+        mImageViewAbove = (ImageView) findViewById(R.id.foldable_layout_above_bitmap);
+        mImageViewAboveFront = (ImageView) findViewById(R.id.foldable_layout_above_front_bitmap);
+        mImageViewBelowShadow = (ImageView) findViewById(R.id.foldable_layout_below_shadow);
+        mImageViewAboveShadow = (ImageView) findViewById(R.id.foldable_layout_above_shadow);
+        mDetailTopDrawable = new SnapshotDrawable();
+        mDetailFrontDrawable = new SnapshotDrawable();
+        mDetailRotatedDrawable = new SnapshotDrawable();
+        mDetailRotatedDrawable.setFlipped(true);
+        mBelowShadow = createShadow();
+        mAboveShadow = createShadow();
+        ViewConfiguration viewConfiguration = ViewConfiguration.get(context);
+        mTouchSlop = viewConfiguration.getScaledTouchSlop();
+        mMinimumFlingVelocity = viewConfiguration.getScaledMinimumFlingVelocity();
+        mSnapshotStrategy = createDefaultSnapshotStrategy();
+        mBitmapPool = BitmapPool.getDefault(context);
     }
 
-    private Bitmap computeBitmap(ViewGroup viewGroup) {
-        Bitmap bitmap;
-        Rect rect = new Rect();
-        viewGroup.getWindowVisibleDisplayFrame(rect);
-        viewGroup.destroyDrawingCache();
-        viewGroup.setDrawingCacheEnabled(true);
-        viewGroup.buildDrawingCache(true);
-        bitmap = viewGroup.getDrawingCache(true);
-        /**
-         * After rotation, the DecorView has no height and no width. Therefore
-         * .getDrawingCache() return null. That's why we  have to force measure and layout.
-         */
-        if (bitmap == null) {
-            viewGroup.measure(
-                    MeasureSpec.makeMeasureSpec(getWidth(), MeasureSpec.EXACTLY),
-                    MeasureSpec.makeMeasureSpec(mCoverHeight * 2, MeasureSpec.EXACTLY)
-            );
-            viewGroup.layout(0, 0, viewGroup.getMeasuredWidth(),
-                    viewGroup.getMeasuredHeight());
-            viewGroup.destroyDrawingCache();
-            viewGroup.setDrawingCacheEnabled(true);
-            viewGroup.buildDrawingCache(true);
-            bitmap = viewGroup.getDrawingCache(true);
-        }
-        if (bitmap == null) {
-            return Bitmap.createBitmap(2, 2, Bitmap.Config.ARGB_8888);
+    private static SnapshotStrategy createDefaultSnapshotStrategy() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            return new PictureSnapshotStrategy();
         } else {
-            return bitmap.copy(Bitmap.Config.ARGB_8888, false);
+            return new DrawingCacheSnapshotStrategy();
         }
     }
 
-    /**
+    private void readAttributes(Context context, AttributeSet attrs, int defStyleAttr, int defStyleRes) {
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.FoldableLayout, defStyleAttr, defStyleRes);
+        try {
+            mAnimationDuration = a.getInt(R.styleable.FoldableLayout_foldDuration, DEFAULT_ANIMATION_DURATION);
+            int interpolatorId = a.getResourceId(R.styleable.FoldableLayout_foldInterpolator, 0);
+            if (interpolatorId != 0) {
+                mTimeInterpolator = AnimationUtils.loadInterpolator(context, interpolatorId);
+            }
+            if (a.hasValue(R.styleable.FoldableLayout_foldSpringStiffness)) {
+                setSpring(a.getFloat(R.styleable.FoldableLayout_foldSpringStiffness, 0),
+                        a.getFloat(R.styleable.FoldableLayout_foldSpringDampingRatio, DEFAULT_SPRING_DAMPING_RATIO));
+            }
+            setOrientation(a.getInt(R.styleable.FoldableLayout_foldOrientation, ORIENTATION_VERTICAL));
+            if (a.hasValue(R.styleable.FoldableLayout_foldSnapshotQuality)) {
+                setSnapshotQuality(a.getInt(R.styleable.FoldableLayout_foldSnapshotQuality, SNAPSHOT_QUALITY_FULL));
+            }
+        } finally {
+            a.recycle();
+        }
+    }
+
+    /**
+     * Set the duration of the fold animations. It is ignored while a spring drives the animations.
+     *
+     * @param animationDuration is the duration in milliseconds of a complete fold.
+     */
+    public void setAnimationDuration(long animationDuration) {
+        mAnimationDuration = animationDuration;
+    }
+
+    public long getAnimationDuration() {
+        return mAnimationDuration;
+    }
+
+    /**
+     * Set the interpolator of the fold animations, disabling the spring if any.
+     *
+     * @param interpolator is the interpolator to use.
+     */
+    public void setInterpolator(TimeInterpolator interpolator) {
+        mTimeInterpolator = interpolator;
+        mSpringInterpolator = null;
+    }
+
+    public TimeInterpolator getInterpolator() {
+        return mTimeInterpolator;
+    }
+
+    /**
+     * Drive the fold animations with a damped spring instead of an interpolator. The duration of
+     * the animations is then the time needed by the spring to come to rest.
+     *
+     * @param stiffness    is the stiffness of the spring.
+     * @param dampingRatio is the damping ratio of the spring, below 1 the fold bounces.
+     */
+    public void setSpring(float stiffness, float dampingRatio) {
+        mSpringInterpolator = new SpringInterpolator(stiffness, dampingRatio);
+        mTimeInterpolator = mSpringInterpolator;
+    }
+
+    /**
+     * Set the curve of the shadow drawn on the folding sides. The shadow is the darkest when the
+     * layout is folded and disappears when it is unfolded, linearly by default.
+     *
+     * @param shadowInterpolator maps the intensity of the shadow, from 0 when unfolded to 1 when
+     *                           folded, to its opacity. Null for a linear curve.
+     */
+    public void setShadowInterpolator(TimeInterpolator shadowInterpolator) {
+        mShadowInterpolator = shadowInterpolator;
+    }
+
+    /**
+     * Set the opacity of the shadow when the layout is folded.
+     *
+     * @param maxShadowAlpha is the opacity, from 0 to 255, 255 by default.
+     */
+    public void setMaxShadowAlpha(int maxShadowAlpha) {
+        mMaxShadowAlpha = maxShadowAlpha;
+    }
+
+    public boolean isFolded() {
+        return mIsFolded;
+    }
+
+    /**
+     * Init the two views which will compose the foldable sides. To ensure nice animations, the
+     * big view height should be exactly the sum of the panel heights: by default
+     * {@link #setPanelCount(int)} panels as high as the small view, or the sizes given to
+     * {@link #setPanelSizes(int...)}.
+     *
+     * @param coverLayoutId  is the "small" view which is used as the cover.
+     * @param detailLayoutId is the "big" view which is used as the detail.
+     * @param coverHeight is the height of the cover view, or its width when folding horizontally.
+     * @param context        is a valid context.
+     */
+    public void setupViews(@LayoutRes int coverLayoutId, @LayoutRes int detailLayoutId, @DimenRes int coverHeight, Context context) {
+        LayoutInflater inflater = LayoutInflater.from(context);
+        setupViews(inflater.inflate(coverLayoutId, mContentLayout, false), inflater.inflate(detailLayoutId, mContentLayout, false),
+                context.getResources().getDimensionPixelSize(coverHeight));
+    }
+
+    /**
+     * Init the two sides with views already built, for instance views kept by the caller and
+     * bound to new data without being inflated again. Views which are not a {@link ViewGroup}
+     * are wrapped in a {@link FrameLayout}. Calling it again replaces the views of the previous
+     * call, ending their fold if any.
+     *
+     * @param cover       is the "small" view which is used as the cover.
+     * @param detail      is the "big" view which is used as the detail.
+     * @param coverHeight is the height of the cover view in pixels, or its width when folding
+     *                    horizontally, or {@link ViewGroup.LayoutParams#WRAP_CONTENT} to measure the cover.
+     */
+    public void setupViews(View cover, View detail, int coverHeight) {
+        setupCover(cover, coverHeight);
+        mDetailLayoutId = 0;
+        attachDetailView(detail);
+        if (!mIsFolded) {
+            setLayoutSize(mPanels.getUnfoldedSize());
+        }
+    }
+
+    /**
+     * Init the cover with a view already built, and the detail view with a layout which is only
+     * inflated when it is first needed, for instance on the first unfold. As the detail view is
+     * rarely shown, it saves its inflation for most rows of a list. It can be inflated ahead of
+     * time off the UI thread with {@link #inflateDetailViewAsync()}.
+     *
+     * @param cover          is the "small" view which is used as the cover.
+     * @param detailLayoutId is the layout of the "big" view which is used as the detail.
+     * @param coverHeight    is the height of the cover view in pixels, or its width when folding
+     *                       horizontally, or {@link ViewGroup.LayoutParams#WRAP_CONTENT} to measure the cover.
+     */
+    public void setupViews(View cover, @LayoutRes int detailLayoutId, int coverHeight) {
+        setupCover(cover, coverHeight);
+        mDetailLayoutId = detailLayoutId;
+        if (!mIsFolded) {
+            // The state was restored unfolded, the detail view is needed right away.
+            ensureDetailView();
+            setLayoutSize(mPanels.getUnfoldedSize());
+        }
+    }
+
+    /**
+     * Inflate the detail view off the UI thread if it is inflated lazily, so that the first unfold
+     * does not have to inflate it. Nothing is done if it is already inflated or being inflated.
+     */
+    public void inflateDetailViewAsync() {
+        if (mViewGroupDetail != null || mDetailLayoutId == 0 || mDetailInflating) {
+            return;
+        }
+        mDetailInflating = true;
+        final int detailLayoutId = mDetailLayoutId;
+        DetailInflater.inflate(getContext(), detailLayoutId, mContentLayout, new DetailInflater.Callback() {
+            @Override
+            public void onInflated(View view) {
+                mDetailInflating = false;
+                // The detail view may have been inflated in the meantime by a fold, or replaced.
+                if (mDetailLayoutId == detailLayoutId && mViewGroupDetail == null) {
+                    attachDetailView(view);
+                }
+            }
+        });
+    }
+
+    /**
+     * Set a listener notified when the detail view is inflated lazily, to bind it to its data.
+     *
+     * @param listener is the listener, or null.
+     */
+    public void setOnDetailInflatedListener(OnDetailInflatedListener listener) {
+        mOnDetailInflatedListener = listener;
+    }
+
+    private void setupCover(View cover, int coverHeight) {
+        removeViews();
+        mViewGroupCover = asViewGroup(cover);
+        mContentLayout.addView(mViewGroupCover);
+        // The state may have been restored before the views were set up.
+        mViewGroupCover.setVisibility(mIsFolded ? VISIBLE : GONE);
+        mCoverWrapContent = coverHeight == ViewGroup.LayoutParams.WRAP_CONTENT;
+        // The size of a wrapped cover is known once it is measured.
+        mCoverHeight = mCoverWrapContent ? 0 : coverHeight;
+        updatePanels();
+    }
+
+    /**
+     * Remove the cover and the detail view of a previous setup, ending their fold if any, so that
+     * the layout can be set up again with other views.
+     */
+    private void removeViews() {
+        if (mViewGroupCover == null) {
+            return;
+        }
+        endAnimation();
+        mRasterizer.cancel();
+        releaseSnapshot();
+        mSnapshotDirty = false;
+        mContentLayout.removeView(mViewGroupCover);
+        mViewGroupCover = null;
+        if (mViewGroupDetail != null) {
+            mViewGroupDetail.removeOnLayoutChangeListener(mDetailLayoutChangeListener);
+            mContentLayout.removeView(mViewGroupDetail);
+            mViewGroupDetail = null;
+        }
+    }
+
+    private void attachDetailView(View detail) {
+        mViewGroupDetail = asViewGroup(detail);
+        mContentLayout.addView(mViewGroupDetail);
+        mViewGroupDetail.setVisibility(mIsFolded ? GONE : VISIBLE);
+        mViewGroupDetail.addOnLayoutChangeListener(mDetailLayoutChangeListener);
+        if (mDetailLayoutId != 0 && mOnDetailInflatedListener != null) {
+            mOnDetailInflatedListener.onDetailInflated(this, mViewGroupDetail);
+        }
+    }
+
+    /**
+     * Inflate the detail view on the UI thread if it is inflated lazily and not inflated yet.
+     */
+    private void ensureDetailView() {
+        if (mViewGroupDetail == null && mDetailLayoutId != 0) {
+            // A pending asynchronous inflation is ignored when it completes.
+            mDetailInflating = false;
+            attachDetailView(LayoutInflater.from(getContext()).inflate(mDetailLayoutId, mContentLayout, false));
+        }
+    }
+
+    private ViewGroup asViewGroup(View view) {
+        if (view instanceof ViewGroup) {
+            return (ViewGroup) view;
+        }
+        FrameLayout frameLayout = new FrameLayout(getContext());
+        frameLayout.setLayoutParams(view.getLayoutParams() != null ? view.getLayoutParams()
+                : new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.WRAP_CONTENT));
+        frameLayout.addView(view, new FrameLayout.LayoutParams(FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT));
+        return frameLayout;
+    }
+
+    /**
+     * Fold the detail view in several panels having the height of the cover. The detail view
+     * should then be exactly this number of times bigger in height than the cover, or in width
+     * when folding horizontally.
+     *
+     * @param panelCount is the number of panels, 2 by default.
+     */
+    public void setPanelCount(int panelCount) {
+        if (panelCount < 2) {
+            throw new IllegalArgumentException("A fold needs at least two panels");
+        }
+        mPanelCount = panelCount;
+        mPanelSizes = null;
+        updatePanels();
+    }
+
+    /**
+     * Fold the detail view in panels of uneven heights, or widths when folding horizontally. The
+     * first panel is unfolded from the cover, and its size replaces the size of the cover. The
+     * detail view should be exactly as big as all the panels.
+     *
+     * @param panelSizes are the sizes of the panels in pixels, at least two.
+     */
+    public void setPanelSizes(int... panelSizes) {
+        if (panelSizes.length < 2) {
+            throw new IllegalArgumentException("A fold needs at least two panels");
+        }
+        mPanelSizes = panelSizes.clone();
+        mPanelCount = panelSizes.length;
+        mCoverHeight = panelSizes[0];
+        mCoverWrapContent = false;
+        updatePanels();
+    }
+
+    public int getPanelCount() {
+        return mPanelCount;
+    }
+
+    private void updatePanels() {
+        if (mPanelSizes != null) {
+            mPanels.setSizes(mPanelSizes);
+        } else {
+            int[] sizes = new int[mPanelCount];
+            for (int i = 0; i < sizes.length; i++) {
+                sizes[i] = mCoverHeight;
+            }
+            mPanels.setSizes(sizes);
+        }
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        SavedState savedState = new SavedState(super.onSaveInstanceState());
+        // A running fold is saved in the state it is heading to.
+        savedState.mFolded = mIsAnimating ? !mUnfolding : mIsFolded;
+        return savedState;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (!(state instanceof SavedState)) {
+            super.onRestoreInstanceState(state);
+            return;
+        }
+        SavedState savedState = (SavedState) state;
+        super.onRestoreInstanceState(savedState.getSuperState());
+        if (mViewGroupCover == null) {
+            // Applied when the views are set up.
+            mIsFolded = savedState.mFolded;
+            return;
+        }
+        endAnimation();
+        if (savedState.mFolded) {
+            foldWithoutAnimation();
+        } else {
+            unfoldWithoutAnimation();
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mDetached = false;
+        if (mPrefetchEnabled) {
+            getViewTreeObserver().addOnPreDrawListener(mPrefetchPreDrawListener);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        stopPrefetch();
+        // A layout which is not displayed keeps no snapshot, nor receives one prefetched.
+        mDetached = true;
+        endAnimation();
+        mRasterizer.cancel();
+        releaseSnapshot();
+        super.onDetachedFromWindow();
+    }
+
+    private void stopPrefetch() {
+        getViewTreeObserver().removeOnPreDrawListener(mPrefetchPreDrawListener);
+        if (mPrefetchScheduled) {
+            mPrefetchScheduled = false;
+            Looper.myQueue().removeIdleHandler(mPrefetchIdleHandler);
+        }
+    }
+
+    private boolean needsPrefetch() {
+        return mPrefetchEnabled && !mIsAnimating && !mSnapshotEvicted && mViewGroupDetail != null
+                && !mRasterizer.isPending() && getWidth() > 0
+                && (mDetailSnapshot == null || mSnapshotDirty || !mSnapshotDirtyRect.isEmpty());
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(MotionEvent event) {
+        if (!mDragEnabled) {
+            return super.onInterceptTouchEvent(event);
+        }
+        trackDrag(event);
+        return mDragging;
+    }
+
+    @Override
+    public boolean onTouchEvent(MotionEvent event) {
+        if (!mDragEnabled) {
+            return super.onTouchEvent(event);
+        }
+        boolean wasDragging = mDragging;
+        trackDrag(event);
+        if (mDragging && !wasDragging) {
+            // The gesture is not a click anymore.
+            int action = event.getAction();
+            event.setAction(MotionEvent.ACTION_CANCEL);
+            super.onTouchEvent(event);
+            event.setAction(action);
+        } else if (!mDragging) {
+            super.onTouchEvent(event);
+        }
+        return true;
+    }
+
+    private void trackDrag(MotionEvent event) {
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                mDragTracking = true;
+                mDragging = false;
+                mDragDownX = event.getX();
+                mDragDownY = event.getY();
+                if (mVelocityTracker == null) {
+                    mVelocityTracker = VelocityTracker.obtain();
+                } else {
+                    mVelocityTracker.clear();
+                }
+                mVelocityTracker.addMovement(event);
+                // Keep the gesture until it is known whether it drags the fold.
+                requestParentDisallowIntercept(true);
+                break;
+            case MotionEvent.ACTION_MOVE:
+                if (!mDragTracking) {
+                    break;
+                }
+                mVelocityTracker.addMovement(event);
+                boolean horizontal = mOrientation == ORIENTATION_HORIZONTAL;
+                float dx = event.getX() - mDragDownX;
+                float dy = event.getY() - mDragDownY;
+                // Distances along and across the direction of the fold.
+                float distance = horizontal ? dx : dy;
+                float crossDistance = horizontal ? dy : dx;
+                if (mDragging) {
+                    if (!mIsAnimating) {
+                        break;
+                    }
+                    float range = mPanels.getUnfoldedSize() - mPanels.getFoldedSize();
+                    applyFoldProgress(Math.max(0, Math.min(1, mDragStartProgress + distance / range)));
+                } else if (Math.abs(distance) > mTouchSlop || Math.abs(crossDistance) > mTouchSlop) {
+                    if (Math.abs(distance) > Math.abs(crossDistance) && startDrag(distance)) {
+                        mDragging = true;
+                        mDragDownX = event.getX();
+                        mDragDownY = event.getY();
+                    } else {
+                        mDragTracking = false;
+                        requestParentDisallowIntercept(false);
+                    }
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                if (mDragging && mIsAnimating) {
+                    mVelocityTracker.addMovement(event);
+                    mVelocityTracker.computeCurrentVelocity(1000);
+                    float velocity = mOrientation == ORIENTATION_HORIZONTAL
+                            ? mVelocityTracker.getXVelocity() : mVelocityTracker.getYVelocity();
+                    if (Math.abs(velocity) > mMinimumFlingVelocity) {
+                        settleFold(velocity > 0);
+                    } else {
+                        settleFold(mFoldProgress >= 0.5);
+                    }
+                }
+                mDragTracking = false;
+                mDragging = false;
+                if (mVelocityTracker != null) {
+                    mVelocityTracker.recycle();
+                    mVelocityTracker = null;
+                }
+                break;
+        }
+    }
+
+    /**
+     * Start to drag the fold, taking over a running animation if any.
+     *
+     * @param distance is the distance already dragged in the direction of the fold.
+     * @return true if the drag moves the fold, false if it goes the wrong way.
+     */
+    private boolean startDrag(float distance) {
+        if (mAnimator != null) {
+            stopAnimator();
+        } else if (!mIsAnimating) {
+            if (mIsFolded != (distance > 0)) {
+                return false;
+            }
+            mUnfolding = mIsFolded;
+            dispatchAnimationStart();
+            startFold(mIsFolded ? 0 : 1);
+        }
+        mDragStartProgress = mFoldProgress;
+        return true;
+    }
+
+    private void requestParentDisallowIntercept(boolean disallowIntercept) {
+        ViewParent parent = getParent();
+        if (parent != null) {
+            parent.requestDisallowInterceptTouchEvent(disallowIntercept);
+        }
+    }
+
+    private void startHardwareLayers() {
+        if (mHardwareLayersEnabled && !mHardwareLayersActive) {
+            mHardwareLayersActive = true;
+            mCoverLayerType = mViewGroupCover.getLayerType();
+            mBelowLayerType = mImageViewBelow.getLayerType();
+            mViewGroupCover.setLayerType(LAYER_TYPE_HARDWARE, null);
+            mImageViewBelow.setLayerType(LAYER_TYPE_HARDWARE, null);
+        }
+    }
+
+    private void stopHardwareLayers() {
+        if (mHardwareLayersActive) {
+            mHardwareLayersActive = false;
+            mViewGroupCover.setLayerType(mCoverLayerType, null);
+            mImageViewBelow.setLayerType(mBelowLayerType, null);
+        }
+    }
+
+    /**
+     * Set the size of the layout in the direction of the fold, requesting a layout pass only if it changed.
+     *
+     * @param size is the new height, or width when folding horizontally.
+     */
+    private void setLayoutSize(int size) {
+        ViewGroup.LayoutParams layoutParams = getLayoutParams();
+        if (layoutParams == null) {
+            return;
+        }
+        if (mOrientation == ORIENTATION_HORIZONTAL) {
+            if (layoutParams.width != size) {
+                layoutParams.width = size;
+                requestLayoutSize();
+            }
+        } else if (layoutParams.height != size) {
+            layoutParams.height = size;
+            requestLayoutSize();
+        }
+    }
+
+    private void requestLayoutSize() {
+        if (mLayoutDeferred) {
+            mLayoutPending = true;
+        } else {
+            requestLayout();
+        }
+    }
+
+    /**
+     * Let a {@link FoldGroup} request the layout passes needed by the size of the layout, so that
+     * the layouts it drives are laid out in one pass per frame.
+     *
+     * @param layoutDeferred is true to only record the layout requests.
+     */
+    void setLayoutDeferred(boolean layoutDeferred) {
+        mLayoutDeferred = layoutDeferred;
+    }
+
+    /**
+     * @return true if the size of the layout changed since the last call while layout requests were deferred.
+     */
+    boolean consumeLayoutRequest() {
+        boolean layoutPending = mLayoutPending;
+        mLayoutPending = false;
+        return layoutPending;
+    }
+
+    /**
+     * Detach the sides of the snapshot from the image views, which display nothing anymore.
+     */
+    private void clearSides() {
+        clearImageView(mImageViewBelow);
+        clearImageView(mImageViewAbove);
+        clearImageView(mImageViewAboveFront);
+        clearImageView(mImageViewBelowShadow);
+        clearImageView(mImageViewAboveShadow);
+    }
+
+    private void clearImageView(ImageView imageView) {
+        setImageBackground(imageView, null);
+        imageView.setImageDrawable(null);
+    }
+
+    private void setImageBackground(ImageView imageView, Drawable drawable) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            imageView.setBackground(drawable);
+        } else {
+            imageView.setBackgroundDrawable(drawable);
+        }
+    }
+
+    /**
+     * Fold the layout without animations.
+     */
+    public void foldWithoutAnimation() {
+        cancelPendingFold();
+        if (!mIsFolded && !mIsAnimating) {
+            mIsFolded = true;
+            clearSides();
+            mViewGroupCover.setVisibility(VISIBLE);
+            if (mViewGroupDetail != null) {
+                mViewGroupDetail.setVisibility(GONE);
+            }
+            setLayoutSize(mPanels.getFoldedSize());
+            requestLayout();
+            mFoldProgress = 0;
+            dispatchFoldProgress(false);
+        }
+    }
+
+    /**
+     * Unfold the layout without animations.
+     */
+    public void unfoldWithoutAnimation() {
+        cancelPendingFold();
+        if (mIsFolded && !mIsAnimating) {
+            ensureDetailView();
+            mViewGroupCover.setVisibility(GONE);
+            mViewGroupDetail.setVisibility(VISIBLE);
+            clearSides();
+            setLayoutSize(mPanels.getUnfoldedSize());
+            requestLayout();
+            mIsFolded = false;
+            mFoldProgress = 1;
+            dispatchFoldProgress(true);
+        }
+    }
+
+    /**
+     * Fold the layout with animations. If the layout is unfolding, the running animation is
+     * reversed from its current position.
+     */
+    public void foldWithAnimation() {
+        animateFold(false);
+    }
+
+    /**
+     * Unfold the view with animations. If the layout is folding, the running animation is
+     * reversed from its current position.
+     */
+    public void unfoldWithAnimation() {
+        animateFold(true);
+    }
+
+    /**
+     * Fold or unfold the layout with animations, depending on its current state. If an animation
+     * is running, it is reversed from its current position.
+     */
+    public void toggleWithAnimation() {
+        if (mFoldPending) {
+            cancelPendingFold();
+        } else if (mAnimator != null) {
+            reverseAnimation();
+        } else if (mIsFolded) {
+            unfoldWithAnimation();
+        } else {
+            foldWithAnimation();
+        }
+    }
+
+    /**
+     * Reverse the running animation from its current position, without capturing the detail view again.
+     */
+    public void reverseAnimation() {
+        if (mAnimator != null) {
+            mUnfolding = !mUnfolding;
+            dispatchAnimationStart();
+            if (mAnimationStart == (mUnfolding ? 1 : 0)) {
+                mAnimator.reverse();
+            } else {
+                // Started from a drag or a manual position, played back it would stop halfway.
+                stopAnimator();
+                startAnimator();
+            }
+        }
+    }
+
+    /**
+     * Cancel the running animation. The layout lands in the folded or unfolded state, whichever is
+     * the closest to the current position of the animation. An animation waiting for its snapshot
+     * does not start.
+     */
+    public void cancelAnimation() {
+        cancelPendingFold();
+        if (mAnimator != null) {
+            mAnimator.cancel();
+        } else if (mIsAnimating) {
+            finishFold(mFoldProgress >= 0.5);
+        }
+    }
+
+    /**
+     * End the running animation, jumping to its final state. An animation waiting for its snapshot
+     * does not start.
+     */
+    public void endAnimation() {
+        cancelPendingFold();
+        if (mAnimator != null) {
+            mAnimator.end();
+        } else if (mIsAnimating) {
+            finishFold(mUnfolding);
+        }
+    }
+
+    /**
+     * Set the position of the fold, stopping any running animation. The detail view is captured
+     * once when the fold leaves its folded or unfolded state, and the layout is restored when the
+     * fold reaches 0 or 1.
+     *
+     * @param fraction is the position of the fold, from 0 when folded to 1 when unfolded.
+     */
+    public void setFoldFraction(float fraction) {
+        fraction = Math.max(0, Math.min(1, fraction));
+        if (mAnimator != null) {
+            stopAnimator();
+        } else if (!mIsAnimating) {
+            float start = mIsFolded ? 0 : 1;
+            if (fraction == start) {
+                return;
+            }
+            mUnfolding = mIsFolded;
+            dispatchAnimationStart();
+            startFold(start);
+        }
+        if (fraction == 0 || fraction == 1) {
+            finishFold(fraction == 1);
+        } else {
+            applyFoldProgress(fraction);
+        }
+    }
+
+    /**
+     * @return the position of the fold, from 0 when folded to 1 when unfolded.
+     */
+    public float getFoldFraction() {
+        if (mIsAnimating) {
+            return mFoldProgress;
+        } else {
+            return mIsFolded ? 0 : 1;
+        }
+    }
+
+    /**
+     * Let the user fold and unfold the layout by dragging it vertically: a folded layout is
+     * unfolded by dragging down, an unfolded one is folded by dragging up. When folding
+     * horizontally, it is dragged to the right and to the left instead. When released, the fold
+     * completes in the direction of the fling, or towards its closest state. Disabled by default.
+     *
+     * @param dragEnabled is true to enable the drag.
+     */
+    public void setDragEnabled(boolean dragEnabled) {
+        mDragEnabled = dragEnabled;
+    }
+
+    public boolean isDragEnabled() {
+        return mDragEnabled;
+    }
+
+    public boolean isAnimating() {
+        return mIsAnimating;
+    }
+
+    /**
+     * Take over the fold on behalf of an external driver, such as a {@link FoldGroup}, which then
+     * moves it with {@link #setFoldFraction(float)}. A running animation is stopped where it is,
+     * and the detail view is captured if the fold is not started yet.
+     *
+     * @param unfold is true if the driver unfolds the layout.
+     * @return the position of the fold from which the driver starts.
+     */
+    float takeOverFold(boolean unfold) {
+        if (mAnimator != null) {
+            stopAnimator();
+        }
+        if (!mIsAnimating) {
+            mUnfolding = unfold;
+            dispatchAnimationStart();
+            startFold(mIsFolded ? 0 : 1);
+        } else if (mUnfolding != unfold) {
+            mUnfolding = unfold;
+            dispatchAnimationStart();
+        }
+        return mFoldProgress;
+    }
+
+    /**
+     * @return true if the fold is run by the animator of the layout.
+     */
+    boolean hasAnimator() {
+        return mAnimator != null;
+    }
+
+    /**
+     * @return the animator running the fold, or null. Used by the tests to step the frames.
+     */
+    ValueAnimator getAnimator() {
+        return mAnimator;
+    }
+
+    /**
+     * @return true if the fold is moved by a drag of the user.
+     */
+    boolean isDragging() {
+        return mDragging;
+    }
+
+    private void animateFold(boolean unfold) {
+        if (mFoldPending) {
+            if (mPendingUnfold != unfold) {
+                // The layout has not moved yet, it simply stays where it is.
+                cancelPendingFold();
+            }
+        } else if (mAnimator != null) {
+            if (mUnfolding != unfold) {
+                reverseAnimation();
+            }
+        } else if (mIsAnimating) {
+            settleFold(unfold);
+        } else if (mIsFolded == unfold) {
+            mPendingUnfold = unfold;
+            // Measured from the request, the wait for the snapshot included.
+            if (mMetricsTracker != null) {
+                mMetricsTracker.start(this, mBitmapPool);
+            }
+            if (rasterizeSnapshot()) {
+                mFoldPending = true;
+                postDelayed(mSnapshotDeadlineRunnable, mSnapshotDeadline);
+            } else {
+                startPendingFold();
+            }
+        }
+    }
+
+    /**
+     * Start the animation requested by {@link #animateFold(boolean)}, with the snapshot at hand.
+     */
+    private void startPendingFold() {
+        // A fold which waited for its snapshot started cold, even if the snapshot is now at hand.
+        mSnapshotAwaited = mFoldPending;
+        mFoldPending = false;
+        removeCallbacks(mSnapshotDeadlineRunnable);
+        mUnfolding = mPendingUnfold;
+        dispatchAnimationStart();
+        startFold(mUnfolding ? 0 : 1);
+        startAnimator();
+    }
+
+    private void cancelPendingFold() {
+        if (mFoldPending) {
+            mFoldPending = false;
+            removeCallbacks(mSnapshotDeadlineRunnable);
+            mRasterizer.cancel();
+            if (mMetricsTracker != null) {
+                mMetricsTracker.cancel();
+            }
+        }
+    }
+
+    /**
+     * Rasterize the detail view on the snapshot executor if the snapshot is missing or stale.
+     *
+     * @return true if a rasterization is pending, false if the snapshot is valid or cannot be rasterized off the UI thread.
+     */
+    private boolean rasterizeSnapshot() {
+        if (mSnapshotExecutor == null || getWidth() == 0) {
+            return false;
+        }
+        Bitmap.Config config;
+        int downscaleFactor;
+        if (mSnapshotStrategy instanceof BitmapSnapshotStrategy) {
+            config = ((BitmapSnapshotStrategy) mSnapshotStrategy).getConfig();
+            downscaleFactor = ((BitmapSnapshotStrategy) mSnapshotStrategy).getDownscaleFactor();
+        } else if (mSnapshotStrategy instanceof DrawingCacheSnapshotStrategy) {
+            config = Bitmap.Config.ARGB_8888;
+            downscaleFactor = 1;
+        } else {
+            return false;
+        }
+        ensureDetailView();
+        if (mDetailSnapshot != null && !mSnapshotDirty) {
+            return false;
+        }
+        if (mRasterizer.isPending()) {
+            // Captured ahead of time, the pixels are on their way.
+            return true;
+        }
+        layoutForSnapshot(mViewGroupDetail);
+        return mRasterizer.rasterize(mViewGroupDetail, config, downscaleFactor, mBitmapPool, mSnapshotExecutor, mRasterizerCallback);
+    }
+
+    /**
+     * Animate a fold whose position is set manually towards its folded or unfolded state.
+     *
+     * @param unfold is true to end unfolded.
+     */
+    private void settleFold(boolean unfold) {
+        if (mUnfolding != unfold) {
+            mUnfolding = unfold;
+            dispatchAnimationStart();
+        }
+        startAnimator();
+    }
+
+    /**
+     * Animate the fold from its current position towards the state given by mUnfolding.
+     */
+    private void startAnimator() {
+        mAnimationCanceled = false;
+        mAnimationStart = mFoldProgress;
+        mAnimationEnd = mUnfolding ? 1 : 0;
+        mAnimator = ValueAnimator.ofFloat(mAnimationStart, mAnimationEnd);
+        mAnimator.setInterpolator(mTimeInterpolator);
+        if (mSpringInterpolator != null) {
+            mAnimator.setDuration(mSpringInterpolator.getDuration());
+        } else {
+            mAnimator.setDuration((long) (mAnimationDuration * Math.abs(mAnimationEnd - mAnimationStart)));
+        }
+        mAnimator.addUpdateListener(mAnimatorUpdateListener);
+        mAnimator.addListener(mAnimatorListener);
+        mAnimator.start();
+    }
+
+    /**
+     * Stop the animator without ending the fold, which stays at its current position.
+     */
+    private void stopAnimator() {
+        ValueAnimator animator = mAnimator;
+        mAnimator = null;
+        animator.removeAllUpdateListeners();
+        animator.removeAllListeners();
+        animator.cancel();
+    }
+
+    private void dispatchAnimationStart() {
+        if (mUnfolding) {
+            mFoldListener.onUnFoldStart();
+        } else {
+            mFoldListener.onFoldStart();
+        }
+    }
+
+    /**
+     * Replace the cover and the detail view by the sides of the snapshot, ready to be animated.
+     *
+     * @param progress is the initial progress of the fold, from 0 when folded to 1 when unfolded.
+     */
+    private void startFold(float progress) {
+        // Another way of folding takes over an animation waiting for its snapshot.
+        cancelPendingFold();
+        mRasterizer.cancel();
+        if (mMetricsTracker != null && !mMetricsTracker.isTracking()) {
+            mMetricsTracker.start(this, mBitmapPool);
+        }
+        ensureDetailView();
+        prepareSnapshot();
+        if (mSnapshotAwaited) {
+            mSnapshotAwaited = false;
+            mLastSnapshotWarm = false;
+        }
+        if (mMetricsTracker != null) {
+            mMetricsTracker.onSnapshotReady(mLastSnapshotWarm);
+        }
+        mIsAnimating = true;
+        startHardwareLayers();
+        // The hinge is set for each side, only the other axis of the pivot is fixed.
+        if (mOrientation == ORIENTATION_HORIZONTAL) {
+            mContentLayout.setPivotY(mViewGroupCover.getHeight() / 2);
+        } else {
+            mContentLayout.setPivotX(mViewGroupCover.getWidth() / 2);
+        }
+        mViewGroupDetail.setVisibility(GONE);
+        // The sides stay attached for the whole fold, the frames only switch the visible faces.
+        setImageBackground(mImageViewBelow, mDetailTopDrawable);
+        setImageBackground(mImageViewAbove, mDetailRotatedDrawable);
+        setImageBackground(mImageViewAboveFront, mDetailFrontDrawable);
+        // The shadows are faded by the opacity of their own views, the layered ones are left unchanged.
+        mImageViewBelowShadow.setImageDrawable(mBelowShadow);
+        mImageViewAboveShadow.setImageDrawable(mAboveShadow);
+        mStage = 0;
+        // Reserve the unfolded height once, frames will not change it.
+        if (mHeightAnimationMode == HEIGHT_ANIMATION_ON_END) {
+            setLayoutSize(mPanels.getUnfoldedSize());
+        }
+        applyFoldProgress(progress);
+    }
+
+    /**
+     * Render one frame of the fold.
+     *
+     * @param progress is the progress of the fold, from 0 when folded to 1 when unfolded.
+     */
+    private void applyFoldProgress(float progress) {
+        long updateStart = mMetricsTracker != null ? System.nanoTime() : 0;
+        mFoldProgress = progress;
+        // A spring may overshoot, only the rotation follows it.
+        float clampedProgress = Math.max(0, Math.min(1, progress));
+        int stage = mPanels.getStage(clampedProgress);
+        float stageProgress = mPanels.getStageProgress(progress, stage);
+        boolean detailSide = stageProgress >= 0.5;
+        if (stage != mStage) {
+            showStage(stage);
+            showAboveSide(detailSide);
+        } else if (detailSide != mAboveShowsDetail) {
+            showAboveSide(detailSide);
+        }
+        if (mOrientation == ORIENTATION_HORIZONTAL) {
+            mContentLayout.setRotationY(180 * stageProgress);
+        } else {
+            mContentLayout.setRotationX(-180 * stageProgress);
+        }
+        float shadowIntensity = 1 - Math.max(0, Math.min(1, stageProgress));
+        if (mShadowInterpolator != null) {
+            shadowIntensity = mShadowInterpolator.getInterpolation(shadowIntensity);
+        }
+        float shadowAlpha = mMaxShadowAlpha * shadowIntensity / 255;
+        mImageViewBelowShadow.setAlpha(shadowAlpha);
+        mImageViewAboveShadow.setAlpha(shadowAlpha);
+        if (mHeightAnimationMode == HEIGHT_ANIMATION_EACH_FRAME) {
+            setLayoutSize(mPanels.getSizeAt(clampedProgress));
+        }
+        if (mMetricsTracker != null) {
+            mMetricsTracker.onFrameUpdated(System.nanoTime() - updateStart);
+        }
+        dispatchFoldProgress(mUnfolding);
+    }
+
+    private void dispatchFoldProgress(boolean unfolding) {
+        // The array is never modified, a listener changing the listeners does not affect this frame.
+        FoldProgressListener[] listeners = mProgressListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            listeners[i].onFoldProgress(this, mFoldProgress, unfolding);
+        }
+    }
+
+    /**
+     * Set up the sides of the snapshot to unfold a panel. The panels before it are shown still,
+     * the shadow only covering the one revealed by the rotating side.
+     *
+     * @param stage is the index of the panel being unfolded.
+     */
+    private void showStage(int stage) {
+        mStage = stage;
+        int revealedOffset = mPanels.getOffset(stage - 1);
+        int stageOffset = mPanels.getOffset(stage);
+        int nextOffset = mPanels.getOffset(stage + 1);
+        if (mOrientation == ORIENTATION_HORIZONTAL) {
+            int height = mDetailSnapshot.getHeight();
+            mDetailTopDrawable.setSourceRect(0, 0, stageOffset, height);
+            mDetailFrontDrawable.setSourceRect(revealedOffset, 0, stageOffset, height);
+            mDetailRotatedDrawable.setSourceRect(stageOffset, 0, nextOffset, height);
+            mImageViewBelow.setPadding(revealedOffset, 0, 0, 0);
+            mImageViewBelowShadow.setPadding(revealedOffset, 0, 0, 0);
+        } else {
+            int width = mDetailSnapshot.getWidth();
+            mDetailTopDrawable.setSourceRect(0, 0, width, stageOffset);
+            mDetailFrontDrawable.setSourceRect(0, revealedOffset, width, stageOffset);
+            mDetailRotatedDrawable.setSourceRect(0, stageOffset, width, nextOffset);
+            mImageViewBelow.setPadding(0, revealedOffset, 0, 0);
+            mImageViewBelowShadow.setPadding(0, revealedOffset, 0, 0);
+        }
+        // The sizes of the drawables changed, the image views are measured again.
+        mImageViewBelow.requestLayout();
+        mImageViewAbove.requestLayout();
+        mImageViewAboveFront.requestLayout();
+        if (!mSnapshotDirtyRect.isEmpty()) {
+            // A panel is revealed, its invalidated region is drawn before it is shown.
+            refreshSnapshot();
+        }
+    }
+
+    /**
+     * Show the front or the back face of the rotating side. The front face is the cover, or the
+     * panel being revealed, and the back face is the mirrored panel being unfolded.
+     *
+     * @param detailSide is true to show the back of the rotating side.
+     */
+    private void showAboveSide(boolean detailSide) {
+        mAboveShowsDetail = detailSide;
+        // The rotating side is moved so that its hinge stays at the end of the revealed panel.
+        int hinge = mPanels.getOffset(mStage);
+        int faceSize;
+        // Only the visibilities change: setting drawables would allocate on each switch.
+        View face;
+        if (detailSide) {
+            faceSize = mPanels.getSize(mStage);
+            face = mImageViewAbove;
+        } else if (mStage == 1) {
+            faceSize = mPanels.getSize(0);
+            face = mViewGroupCover;
+        } else {
+            faceSize = mPanels.getSize(mStage - 1);
+            face = mImageViewAboveFront;
+        }
+        mImageViewAbove.setVisibility(face == mImageViewAbove ? VISIBLE : GONE);
+        mImageViewAboveShadow.setVisibility(face == mImageViewAbove ? VISIBLE : GONE);
+        mImageViewAboveFront.setVisibility(face == mImageViewAboveFront ? VISIBLE : GONE);
+        mViewGroupCover.setVisibility(face == mViewGroupCover ? VISIBLE : GONE);
+        if (mOrientation == ORIENTATION_HORIZONTAL) {
+            mContentLayout.setTranslationX(hinge - faceSize);
+            mContentLayout.setPivotX(faceSize);
+        } else {
+            mContentLayout.setTranslationY(hinge - faceSize);
+            mContentLayout.setPivotY(faceSize);
+        }
+    }
+
+    /**
+     * Restore the cover or the detail view once the fold is over.
+     *
+     * @param unfolded is true if the layout ends unfolded.
+     */
+    private void finishFold(boolean unfolded) {
+        mAnimator = null;
+        if (mDragTracking) {
+            // The fold was finished under the finger, the rest of the gesture does not drag it.
+            mDragTracking = false;
+            mDragging = false;
+            requestParentDisallowIntercept(false);
+        }
+        mViewGroupCover.setVisibility(unfolded ? GONE : VISIBLE);
+        mViewGroupDetail.setVisibility(unfolded ? VISIBLE : GONE);
+        clearSides();
+        mImageViewBelow.setPadding(0, 0, 0, 0);
+        mImageViewBelowShadow.setPadding(0, 0, 0, 0);
+        mContentLayout.setRotationX(0);
+        mContentLayout.setRotationY(0);
+        mContentLayout.setTranslationX(0);
+        mContentLayout.setTranslationY(0);
+        setLayoutSize(unfolded ? mPanels.getUnfoldedSize() : mPanels.getFoldedSize());
+        float endProgress = unfolded ? 1 : 0;
+        if (mFoldProgress != endProgress) {
+            // A canceled or overshooting fold does not end on its final frame.
+            mFoldProgress = endProgress;
+            dispatchFoldProgress(unfolded);
+        }
+        mIsFolded = !unfolded;
+        recycleSnapshot();
+        stopHardwareLayers();
+        mIsAnimating = false;
+        if (mMetricsTracker != null) {
+            mMetricsTracker.finish(unfolded);
+        }
+        if (unfolded) {
+            mFoldListener.onUnFoldEnd();
+        } else {
+            mFoldListener.onFoldEnd();
+        }
+    }
+
+    private Drawable createShadow() {
+        int shadowId = mOrientation == ORIENTATION_HORIZONTAL ? R.drawable.shadow_horizontal : R.drawable.shadow;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            return getResources().getDrawable(shadowId, null);
+        } else {
+            return getResources().getDrawable(shadowId);
+        }
+    }
+
+    private void prepareSnapshot() {
+        // The snapshot is in use, it cannot be evicted until the fold ends.
+        mSnapshotRetention.remove(this);
+        mSnapshotEvicted = false;
+        mLastSnapshotWarm = mDetailSnapshot != null && !mSnapshotDirty;
+        if (!mLastSnapshotWarm) {
+            releaseSnapshot();
+            mDetailSnapshot = computeSnapshot(mViewGroupDetail);
+            mSnapshotDirty = false;
+        } else {
+            refreshSnapshot();
+        }
+        // All the sides are regions of the same snapshot, the rotated one being mirrored at draw time.
+        mDetailTopDrawable.setSnapshot(mDetailSnapshot);
+        mDetailFrontDrawable.setSnapshot(mDetailSnapshot);
+        mDetailRotatedDrawable.setSnapshot(mDetailSnapshot);
+    }
+
+    /**
+     * Keep the snapshot of the detail view for the next animation if prefetch is enabled and it is
+     * still valid, release it otherwise. It must not be displayed anymore.
+     */
+    private void recycleSnapshot() {
+        if (mPrefetchEnabled && !mSnapshotDirty) {
+            mDetailTopDrawable.setSnapshot(null);
+            mDetailFrontDrawable.setSnapshot(null);
+            mDetailRotatedDrawable.setSnapshot(null);
+            retainSnapshot();
+        } else {
+            releaseSnapshot();
+        }
+    }
+
+    /**
+     * Register the kept snapshot to the retention, which may release it right away or later.
+     */
+    private void retainSnapshot() {
+        if (!mSnapshotRetention.retain(this, getContext())) {
+            releaseSnapshot();
+        }
+    }
+
+    /**
+     * Release the snapshot on behalf of the retention. It is not captured ahead of time again until
+     * the content changes or a fold starts, so that layouts do not evict each other in turn.
+     */
+    void evictSnapshot() {
+        if (!mIsAnimating) {
+            mSnapshotEvicted = true;
+            releaseSnapshot();
+        }
+    }
+
+    /**
+     * Draw again the invalidated region of the detail view into the snapshot. While a fold is
+     * running, only the region of the revealed panels is drawn, the rest staying invalidated until
+     * its panel is revealed.
+     */
+    private void refreshSnapshot() {
+        if (mDetailSnapshot == null || mSnapshotDirtyRect.isEmpty()) {
+            return;
+        }
+        Rect region = mSnapshotRefreshRect;
+        region.set(mSnapshotDirtyRect);
+        if (mIsAnimating) {
+            int revealedSize = mPanels.getOffset(mStage + 1);
+            boolean visible;
+            if (mOrientation == ORIENTATION_HORIZONTAL) {
+                visible = region.intersect(0, 0, revealedSize, mDetailSnapshot.getHeight());
+            } else {
+                visible = region.intersect(0, 0, mDetailSnapshot.getWidth(), revealedSize);
+            }
+            if (!visible) {
+                return;
+            }
+        }
+        if (mDetailSnapshot instanceof BitmapSnapshot) {
+            ((BitmapSnapshot) mDetailSnapshot).refresh(mViewGroupDetail, region);
+            if (region.equals(mSnapshotDirtyRect)) {
+                mSnapshotDirtyRect.setEmpty();
+            }
+        } else {
+            // Pictures hold no pixels, they are recorded again as a whole.
+            mDetailSnapshot.release();
+            mDetailSnapshot = computeSnapshot(mViewGroupDetail);
+            mDetailTopDrawable.setSnapshot(mDetailSnapshot);
+            mDetailFrontDrawable.setSnapshot(mDetailSnapshot);
+            mDetailRotatedDrawable.setSnapshot(mDetailSnapshot);
+            mSnapshotDirtyRect.setEmpty();
+        }
+        if (mIsAnimating) {
+            mDetailTopDrawable.invalidateSelf();
+            mDetailFrontDrawable.invalidateSelf();
+            mDetailRotatedDrawable.invalidateSelf();
+        }
+    }
+
+    /**
+     * Release the snapshot of the detail view. It must not be displayed anymore.
+     */
+    private void releaseSnapshot() {
+        mSnapshotDirtyRect.setEmpty();
+        mSnapshotRetention.remove(this);
+        mDetailTopDrawable.setSnapshot(null);
+        mDetailFrontDrawable.setSnapshot(null);
+        mDetailRotatedDrawable.setSnapshot(null);
+        if (mDetailSnapshot != null) {
+            mDetailSnapshot.release();
+            mDetailSnapshot = null;
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        if (mCoverWrapContent && !mIsAnimating && mViewGroupCover != null) {
+            measureCover(widthMeasureSpec, heightMeasureSpec);
+        }
+        super.onMeasure(widthMeasureSpec, heightMeasureSpec);
+    }
+
+    /**
+     * Measure a cover wrapping its content along the fold axis, and update the panels if its size changed.
+     */
+    private void measureCover(int widthMeasureSpec, int heightMeasureSpec) {
+        ViewGroup.LayoutParams layoutParams = mViewGroupCover.getLayoutParams();
+        int unspecified = MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED);
+        int coverSize;
+        if (mOrientation == ORIENTATION_HORIZONTAL) {
+            mViewGroupCover.measure(unspecified,
+                    getChildMeasureSpec(heightMeasureSpec, getPaddingTop() + getPaddingBottom(), layoutParams.height));
+            coverSize = mViewGroupCover.getMeasuredWidth();
+        } else {
+            mViewGroupCover.measure(getChildMeasureSpec(widthMeasureSpec, getPaddingLeft() + getPaddingRight(), layoutParams.width),
+                    unspecified);
+            coverSize = mViewGroupCover.getMeasuredHeight();
+        }
+        if (coverSize != mCoverHeight) {
+            mCoverHeight = coverSize;
+            updatePanels();
+            setLayoutSize(mIsFolded ? mPanels.getFoldedSize() : mPanels.getUnfoldedSize());
+        }
+    }
+
+    private Snapshot computeSnapshot(ViewGroup viewGroup) {
+        layoutForSnapshot(viewGroup);
+        return mSnapshotStrategy.capture(viewGroup, mBitmapPool);
+    }
+
+    private void layoutForSnapshot(ViewGroup viewGroup) {
+        /**
+         * After rotation, the DecorView has no height and no width. Therefore
+         * it can not be captured. That's why we  have to force measure and layout.
+         */
+        if (viewGroup.getWidth() == 0 || viewGroup.getHeight() == 0) {
+            boolean horizontal = mOrientation == ORIENTATION_HORIZONTAL;
+            viewGroup.measure(
+                    MeasureSpec.makeMeasureSpec(horizontal ? mPanels.getUnfoldedSize() : getWidth(), MeasureSpec.EXACTLY),
+                    MeasureSpec.makeMeasureSpec(horizontal ? getHeight() : mPanels.getUnfoldedSize(), MeasureSpec.EXACTLY)
+            );
+            viewGroup.layout(0, 0, viewGroup.getMeasuredWidth(),
+                    viewGroup.getMeasuredHeight());
+        }
+    }
+
+    /**
+     * State of the layout saved across configuration changes.
+     */
+    static class SavedState extends BaseSavedState {
+
+        boolean mFolded;
+
+        SavedState(Parcelable superState) {
+            super(superState);
+        }
+
+        private SavedState(Parcel in) {
+            super(in);
+            mFolded = in.readInt() != 0;
+        }
+
+        @Override
+        public void writeToParcel(Parcel out, int flags) {
+            super.writeToParcel(out, flags);
+            out.writeInt(mFolded ? 1 : 0);
+        }
+
+        public static final Parcelable.Creator<SavedState> CREATOR = new Parcelable.Creator<SavedState>() {
+            @Override
+            public SavedState createFromParcel(Parcel in) {
+                return new SavedState(in);
+            }
+
+            @Override
+            public SavedState[] newArray(int size) {
+                return new SavedState[size];
+            }
+        };
+    }
+
+    /**
      * Interface to dispatch folding events.
      */
     public interface FoldListener {
@@ -462,4 +2080,18 @@ public class FoldableLayout extends RelativeLayout {
          */
         void onFoldEnd();
     }
+
+    /**
+     * Interface to bind a detail view inflated lazily.
+     */
+    public interface OnDetailInflatedListener {
+
+        /**
+         * Dispatch when the detail view is inflated, before it is displayed or captured.
+         *
+         * @param foldableLayout is the layout owning the detail view.
+         * @param detailView     is the detail view.
+         */
+        void onDetailInflated(FoldableLayout foldableLayout, View detailView);
+    }
 }
\ No newline at end of file
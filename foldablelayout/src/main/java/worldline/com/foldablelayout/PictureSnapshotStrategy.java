@@ -0,0 +1,70 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.graphics.Canvas;
+import android.graphics.Picture;
+import android.view.View;
+
+/**
+ * Capture a view by recording its drawing commands into a {@link Picture}, which is replayed each
+ * time a side of the fold is drawn. No pixel buffer is allocated, but drawing a picture on a
+ * hardware accelerated canvas requires {@link android.os.Build.VERSION_CODES#M}.
+ */
+public class PictureSnapshotStrategy implements SnapshotStrategy {
+
+    @Override
+    public Snapshot capture(View view, BitmapPool bitmapPool) {
+        Picture picture = new Picture();
+        Canvas canvas = picture.beginRecording(view.getWidth(), view.getHeight());
+        canvas.translate(-view.getScrollX(), -view.getScrollY());
+        view.draw(canvas);
+        picture.endRecording();
+        return new PictureSnapshot(picture);
+    }
+
+    private static class PictureSnapshot implements Snapshot {
+
+        private Picture mPicture;
+
+        PictureSnapshot(Picture picture) {
+            mPicture = picture;
+        }
+
+        @Override
+        public int getWidth() {
+            return mPicture == null ? 0 : mPicture.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return mPicture == null ? 0 : mPicture.getHeight();
+        }
+
+        @Override
+        public void draw(Canvas canvas) {
+            if (mPicture != null) {
+                canvas.drawPicture(mPicture);
+            }
+        }
+
+        @Override
+        public void release() {
+            mPicture = null;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.graphics.Canvas;
+
+/**
+ * Captured rendering of a view, used to draw the sides of the fold while the view itself is hidden.
+ */
+public interface Snapshot {
+
+    /**
+     * @return the width in pixels of the captured view.
+     */
+    int getWidth();
+
+    /**
+     * @return the height in pixels of the captured view.
+     */
+    int getHeight();
+
+    /**
+     * Draw the whole snapshot, its top left corner being at the origin of the canvas.
+     *
+     * @param canvas is the canvas to draw on.
+     */
+    void draw(Canvas canvas);
+
+    /**
+     * Release the resources held by this snapshot. It must not be drawn anymore.
+     */
+    void release();
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ * Drawable which renders a region of a snapshot, optionally mirrored. It allows to display each
+ * side of the fold from the same snapshot, without copying its pixels.
+ */
+public class SnapshotDrawable extends Drawable {
+
+    private final Rect mSourceRect = new Rect();
+    private Snapshot mSnapshot;
+    private boolean mFlipped;
+    private boolean mFlippedHorizontally;
+    private int mAlpha = 255;
+
+    /**
+     * Set the snapshot to render.
+     *
+     * @param snapshot is the snapshot, or null to render nothing.
+     */
+    public void setSnapshot(Snapshot snapshot) {
+        mSnapshot = snapshot;
+        invalidateSelf();
+    }
+
+    /**
+     * Set the region of the snapshot to render. The intrinsic size of the drawable is the size of this region.
+     *
+     * @param left   is the left edge of the region in the snapshot.
+     * @param top    is the top edge of the region in the snapshot.
+     * @param right  is the right edge of the region in the snapshot.
+     * @param bottom is the bottom edge of the region in the snapshot.
+     */
+    public void setSourceRect(int left, int top, int right, int bottom) {
+        mSourceRect.set(left, top, right, bottom);
+        invalidateSelf();
+    }
+
+    /**
+     * Mirror the region when drawing it, vertically unless {@link #setFlippedHorizontally(boolean)} is set.
+     *
+     * @param flipped is true to mirror the region.
+     */
+    public void setFlipped(boolean flipped) {
+        mFlipped = flipped;
+        invalidateSelf();
+    }
+
+    /**
+     * Set the axis of the mirror applied by {@link #setFlipped(boolean)}.
+     *
+     * @param flippedHorizontally is true to mirror the region horizontally, false to mirror it vertically.
+     */
+    public void setFlippedHorizontally(boolean flippedHorizontally) {
+        mFlippedHorizontally = flippedHorizontally;
+        invalidateSelf();
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        Rect bounds = getBounds();
+        if (mSnapshot == null || mSourceRect.isEmpty() || bounds.isEmpty()) {
+            return;
+        }
+        int saveCount;
+        if (mAlpha < 255) {
+            saveCount = canvas.saveLayerAlpha(bounds.left, bounds.top, bounds.right, bounds.bottom, mAlpha, Canvas.ALL_SAVE_FLAG);
+        } else {
+            saveCount = canvas.save();
+        }
+        canvas.clipRect(bounds);
+        if (mFlipped && mFlippedHorizontally) {
+            canvas.scale(-1, 1, bounds.exactCenterX(), bounds.exactCenterY());
+        } else if (mFlipped) {
+            canvas.scale(1, -1, bounds.exactCenterX(), bounds.exactCenterY());
+        }
+        // Map the source region of the snapshot onto the bounds of the drawable.
+        canvas.translate(bounds.left, bounds.top);
+        canvas.scale((float) bounds.width() / mSourceRect.width(), (float) bounds.height() / mSourceRect.height());
+        canvas.translate(-mSourceRect.left, -mSourceRect.top);
+        mSnapshot.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return mSourceRect.width();
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return mSourceRect.height();
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        mAlpha = alpha;
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        // Snapshots are drawn as recorded.
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.PaintFlagsDrawFilter;
+import android.graphics.Picture;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Rasterizer of snapshots off the UI thread. The drawing commands of the view are recorded into a
+ * {@link Picture} on the UI thread, then played back into a pooled bitmap by an executor, and the
+ * snapshot is handed back on the UI thread. Only one rasterization is pending at a time.
+ */
+final class SnapshotRasterizer {
+
+    /**
+     * Callback receiving a rasterized snapshot on the UI thread.
+     */
+    interface Callback {
+
+        void onRasterized(Snapshot snapshot);
+    }
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final PaintFlagsDrawFilter mDrawFilter = new PaintFlagsDrawFilter(0, Paint.FILTER_BITMAP_FLAG);
+    private Task mPendingTask;
+
+    /**
+     * Record a view and rasterize it on an executor, cancelling any pending rasterization. Must be
+     * called from the UI thread, the view being already measured and laid out.
+     *
+     * @param view            is the view to capture.
+     * @param config          is the config of the bitmap.
+     * @param downscaleFactor divides the width and the height of the bitmap.
+     * @param bitmapPool      is the pool to borrow the bitmap from.
+     * @param executor        is the executor rasterizing the view.
+     * @param callback        is the callback receiving the snapshot, unless cancelled.
+     * @return false if the executor rejected the rasterization, in which case nothing is pending.
+     */
+    boolean rasterize(View view, Bitmap.Config config, int downscaleFactor, BitmapPool bitmapPool, Executor executor, Callback callback) {
+        cancel();
+        Picture picture = new Picture();
+        Canvas canvas = picture.beginRecording(view.getWidth(), view.getHeight());
+        canvas.translate(-view.getScrollX(), -view.getScrollY());
+        view.draw(canvas);
+        picture.endRecording();
+        Task task = new Task(picture, config, downscaleFactor, bitmapPool, callback);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+        mPendingTask = task;
+        return true;
+    }
+
+    /**
+     * Cancel the pending rasterization, whose bitmap is given back to its pool if already drawn.
+     */
+    void cancel() {
+        if (mPendingTask != null) {
+            mPendingTask.mCanceled = true;
+            mPendingTask = null;
+        }
+    }
+
+    boolean isPending() {
+        return mPendingTask != null;
+    }
+
+    private final class Task implements Runnable {
+
+        private final Picture mPicture;
+        private final Bitmap.Config mConfig;
+        private final int mDownscaleFactor;
+        private final BitmapPool mBitmapPool;
+        private final Callback mCallback;
+        volatile boolean mCanceled;
+
+        Task(Picture picture, Bitmap.Config config, int downscaleFactor, BitmapPool bitmapPool, Callback callback) {
+            mPicture = picture;
+            mConfig = config;
+            mDownscaleFactor = downscaleFactor;
+            mBitmapPool = bitmapPool;
+            mCallback = callback;
+        }
+
+        @Override
+        public void run() {
+            if (mCanceled) {
+                return;
+            }
+            int width = mPicture.getWidth();
+            int height = mPicture.getHeight();
+            Bitmap bitmap = mBitmapPool.get(Math.max(1, width / mDownscaleFactor), Math.max(1, height / mDownscaleFactor), mConfig);
+            Canvas canvas = new Canvas(bitmap);
+            if (mDownscaleFactor > 1) {
+                canvas.setDrawFilter(mDrawFilter);
+            }
+            canvas.scale((float) bitmap.getWidth() / Math.max(1, width), (float) bitmap.getHeight() / Math.max(1, height));
+            canvas.drawPicture(mPicture);
+            final Snapshot snapshot = new BitmapSnapshot(bitmap, width, height, mBitmapPool);
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (mPendingTask == Task.this) {
+                        mPendingTask = null;
+                        mCallback.onRasterized(snapshot);
+                    } else {
+                        snapshot.release();
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+
+import java.util.ArrayList;
+
+/**
+ * Bounds the number of {@link FoldableLayout} keeping the snapshot of their detail view between
+ * two folds. When more layouts keep one, the snapshot of the least recently used layout is
+ * released. All the snapshots are released when the system runs low on memory.
+ * Retentions are used from the main thread.
+ */
+public class SnapshotRetention {
+
+    private static final int DEFAULT_MAX_COUNT = 4;
+
+    private static SnapshotRetention sDefaultRetention;
+
+    private final ArrayList<FoldableLayout> mLayouts = new ArrayList<>();
+    private int mMaxCount;
+    private boolean mRegistered;
+
+    private final ComponentCallbacks2 mComponentCallbacks = new ComponentCallbacks2() {
+        @Override
+        public void onTrimMemory(int level) {
+            if (level >= TRIM_MEMORY_RUNNING_LOW) {
+                releaseAll();
+            }
+        }
+
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+
+        }
+
+        @Override
+        public void onLowMemory() {
+            releaseAll();
+        }
+    };
+
+    /**
+     * Basic constructor.
+     *
+     * @param maxCount is the maximum number of layouts keeping their snapshot, 0 to keep none.
+     */
+    public SnapshotRetention(int maxCount) {
+        mMaxCount = maxCount;
+    }
+
+    /**
+     * Get the retention shared by all {@link FoldableLayout} which do not have their own.
+     *
+     * @return the default retention.
+     */
+    public static synchronized SnapshotRetention getDefault() {
+        if (sDefaultRetention == null) {
+            sDefaultRetention = new SnapshotRetention(DEFAULT_MAX_COUNT);
+        }
+        return sDefaultRetention;
+    }
+
+    /**
+     * Set the maximum number of layouts keeping their snapshot, releasing the oldest if needed.
+     *
+     * @param maxCount is the maximum number of layouts, 0 to keep none.
+     */
+    public void setMaxCount(int maxCount) {
+        mMaxCount = maxCount;
+        trimToCount(maxCount);
+    }
+
+    public int getMaxCount() {
+        return mMaxCount;
+    }
+
+    /**
+     * @return the number of layouts currently keeping their snapshot.
+     */
+    public int getCount() {
+        return mLayouts.size();
+    }
+
+    /**
+     * Release the snapshots of all the layouts, and clear the default {@link BitmapPool}.
+     */
+    public void releaseAll() {
+        trimToCount(0);
+        BitmapPool.getDefault().clear();
+    }
+
+    /**
+     * Register a layout keeping its snapshot as the most recently used one.
+     *
+     * @param foldableLayout is the layout.
+     * @param context        is used to listen to memory pressure.
+     * @return false if the layout must release its snapshot right away.
+     */
+    boolean retain(FoldableLayout foldableLayout, Context context) {
+        if (mMaxCount <= 0) {
+            return false;
+        }
+        if (!mRegistered) {
+            mRegistered = true;
+            context.getApplicationContext().registerComponentCallbacks(mComponentCallbacks);
+        }
+        mLayouts.remove(foldableLayout);
+        mLayouts.add(foldableLayout);
+        trimToCount(mMaxCount);
+        return true;
+    }
+
+    /**
+     * Forget a layout which released its snapshot.
+     *
+     * @param foldableLayout is the layout.
+     */
+    void remove(FoldableLayout foldableLayout) {
+        mLayouts.remove(foldableLayout);
+    }
+
+    private void trimToCount(int maxCount) {
+        while (mLayouts.size() > maxCount) {
+            mLayouts.remove(0).evictSnapshot();
+        }
+    }
+}
@@ -0,0 +1,34 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.view.View;
+
+/**
+ * Strategy used by {@link FoldableLayout} to capture the detail view before animating it.
+ */
+public interface SnapshotStrategy {
+
+    /**
+     * Capture the current rendering of a view. The view is already measured and laid out.
+     *
+     * @param view       is the view to capture.
+     * @param bitmapPool is the pool to borrow pixel buffers from, if the strategy needs any.
+     * @return the snapshot of the view, never null.
+     */
+    Snapshot capture(View view, BitmapPool bitmapPool);
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright 2015 Worldline.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package worldline.com.foldablelayout;
+
+import android.animation.TimeInterpolator;
+
+/**
+ * Interpolator following a damped spring, from rest at 0 to rest at 1. The physical duration of
+ * the spring is given by {@link #getDuration()}, and should be used as the duration of the
+ * animation to keep its physics.
+ */
+public class SpringInterpolator implements TimeInterpolator {
+
+    /**
+     * Distance to the target under which the spring is considered at rest.
+     */
+    private static final double REST_THRESHOLD = 0.001;
+
+    private static final double MAX_DURATION = 10;
+
+    private final double mNaturalFrequency;
+    private final double mDampingRatio;
+    private final double mDurationSeconds;
+
+    /**
+     * Basic constructor.
+     *
+     * @param stiffness    is the stiffness of the spring, for a unit mass.
+     * @param dampingRatio is the damping ratio of the spring. Below 1 the spring oscillates, from 1 it does not.
+     */
+    public SpringInterpolator(float stiffness, float dampingRatio) {
+        if (stiffness <= 0 || dampingRatio <= 0) {
+            throw new IllegalArgumentException("Stiffness and damping ratio must be positive");
+        }
+        mNaturalFrequency = Math.sqrt(stiffness);
+        mDampingRatio = dampingRatio;
+        mDurationSeconds = computeDuration();
+    }
+
+    /**
+     * @return the time needed by the spring to come to rest, in milliseconds.
+     */
+    public long getDuration() {
+        return Math.round(mDurationSeconds * 1000);
+    }
+
+    @Override
+    public float getInterpolation(float input) {
+        if (input >= 1) {
+            return 1;
+        }
+        return (float) (1 + getDisplacement(input * mDurationSeconds));
+    }
+
+    /**
+     * Position of the spring relative to its target, starting at -1 with no velocity.
+     *
+     * @param time is the time in seconds.
+     * @return the displacement from the target.
+     */
+    private double getDisplacement(double time) {
+        double w0 = mNaturalFrequency;
+        double zeta = mDampingRatio;
+        if (zeta < 1) {
+            double wd = w0 * Math.sqrt(1 - zeta * zeta);
+            return -Math.exp(-zeta * w0 * time) * (Math.cos(wd * time) + zeta * w0 / wd * Math.sin(wd * time));
+        } else if (zeta == 1) {
+            return -(1 + w0 * time) * Math.exp(-w0 * time);
+        } else {
+            double root = Math.sqrt(zeta * zeta - 1);
+            double r1 = -w0 * (zeta - root);
+            double r2 = -w0 * (zeta + root);
+            double c1 = r2 / (r1 - r2);
+            return c1 * Math.exp(r1 * time) + (-1 - c1) * Math.exp(r2 * time);
+        }
+    }
+
+    /**
+     * Upper bound of the distance to the target, decreasing with time.
+     *
+     * @param time is the time in seconds.
+     * @return the bound of the displacement.
+     */
+    private double getEnvelope(double time) {
+        double w0 = mNaturalFrequency;
+        double zeta = mDampingRatio;
+        if (zeta < 1) {
+            double wd = w0 * Math.sqrt(1 - zeta * zeta);
+            return Math.exp(-zeta * w0 * time) * Math.sqrt(1 + zeta * w0 / wd * zeta * w0 / wd);
+        } else {
+            return Math.abs(getDisplacement(time));
+        }
+    }
+
+    private double computeDuration() {
+        double low = 0;
+        double high = MAX_DURATION;
+        if (getEnvelope(high) > REST_THRESHOLD) {
+            return high;
+        }
+        for (int i = 0; i < 32; i++) {
+            double middle = (low + high) / 2;
+            if (getEnvelope(middle) > REST_THRESHOLD) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+}
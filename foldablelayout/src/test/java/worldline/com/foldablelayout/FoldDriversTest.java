@@ -0,0 +1,125 @@
+package worldline.com.foldablelayout;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.animation.LinearInterpolator;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static worldline.com.foldablelayout.FoldTestLayouts.COVER_HEIGHT;
+import static worldline.com.foldablelayout.FoldTestLayouts.WIDTH;
+import static worldline.com.foldablelayout.FoldTestLayouts.createLayout;
+import static worldline.com.foldablelayout.FoldTestLayouts.layout;
+
+/**
+ * Runs folds to their end with each driver of the animation, and checks that they all land on the
+ * same state: the default interpolator, a custom interpolator and a spring.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class FoldDriversTest {
+
+    private static final long FRAME_INTERVAL = 16;
+    private static final long MAX_FOLD_DURATION = 10000;
+
+    @Test
+    public void defaultInterpolator_landsOnFinalStates() throws Exception {
+        FoldableLayout layout = createLayout();
+        assertFinalStates(layout);
+    }
+
+    @Test
+    public void customInterpolator_landsOnFinalStates() throws Exception {
+        FoldableLayout layout = createLayout();
+        layout.setInterpolator(new LinearInterpolator());
+        layout.setAnimationDuration(250);
+        assertFinalStates(layout);
+    }
+
+    @Test
+    public void spring_landsOnFinalStates() throws Exception {
+        FoldableLayout layout = createLayout();
+        // Underdamped, the fold overshoots before settling.
+        layout.setSpring(400, 0.3f);
+        assertFinalStates(layout);
+    }
+
+    @Test
+    public void toggleAfterDrag_foldsBackThroughAllPositions() throws Exception {
+        FoldableLayout layout = createLayout();
+        layout.setDragEnabled(true);
+        // Dragged slowly to 0.7 then released, the fold settles towards the unfolded state.
+        drag(layout, 0, 0.7f * COVER_HEIGHT);
+        assertTrue(layout.isAnimating());
+        Robolectric.getForegroundThreadScheduler().advanceBy(FRAME_INTERVAL);
+        final float[] minProgress = {1};
+        layout.addFoldProgressListener(new FoldProgressListener() {
+            @Override
+            public void onFoldProgress(FoldableLayout foldableLayout, float progress, boolean unfolding) {
+                if (progress > 0) {
+                    minProgress[0] = Math.min(minProgress[0], progress);
+                }
+            }
+        });
+        layout.toggleWithAnimation();
+        runToEnd(layout);
+        assertTrue(layout.isFolded());
+        assertRestState(layout, COVER_HEIGHT, View.VISIBLE, View.GONE);
+        // The fold played back below the released position instead of jumping to its end.
+        assertTrue(minProgress[0] < 0.5f);
+    }
+
+    private static void drag(FoldableLayout layout, float fromY, float toY) {
+        // Past the touch slop the drag starts, the following moves move the fold.
+        float slop = fromY + 20;
+        dispatchTouch(layout, MotionEvent.ACTION_DOWN, 0, fromY);
+        dispatchTouch(layout, MotionEvent.ACTION_MOVE, 100, slop);
+        dispatchTouch(layout, MotionEvent.ACTION_MOVE, 1100, slop + toY);
+        dispatchTouch(layout, MotionEvent.ACTION_MOVE, 2100, slop + toY);
+        dispatchTouch(layout, MotionEvent.ACTION_UP, 3100, slop + toY);
+    }
+
+    private static void dispatchTouch(FoldableLayout layout, int action, long eventTime, float y) {
+        MotionEvent event = MotionEvent.obtain(0, eventTime, action, WIDTH / 2, y, 0);
+        layout.onTouchEvent(event);
+        event.recycle();
+    }
+
+    private static void assertFinalStates(FoldableLayout layout) {
+        layout.unfoldWithAnimation();
+        runToEnd(layout);
+        assertFalse(layout.isFolded());
+        assertRestState(layout, COVER_HEIGHT * 2, View.GONE, View.VISIBLE);
+
+        layout.foldWithAnimation();
+        runToEnd(layout);
+        assertTrue(layout.isFolded());
+        assertRestState(layout, COVER_HEIGHT, View.VISIBLE, View.GONE);
+    }
+
+    private static void runToEnd(FoldableLayout layout) {
+        for (long time = 0; layout.isAnimating() && time < MAX_FOLD_DURATION; time += FRAME_INTERVAL) {
+            Robolectric.getForegroundThreadScheduler().advanceBy(FRAME_INTERVAL);
+            layout(layout);
+        }
+        assertFalse(layout.isAnimating());
+    }
+
+    private static void assertRestState(FoldableLayout layout, int height, int coverVisibility, int detailVisibility) {
+        assertEquals(0, layout.mContentLayout.getRotationX(), 0);
+        assertEquals(0, layout.mContentLayout.getRotationY(), 0);
+        assertEquals(0, layout.mContentLayout.getTranslationX(), 0);
+        assertEquals(0, layout.mContentLayout.getTranslationY(), 0);
+        assertEquals(height, layout.getLayoutParams().height);
+        assertEquals(coverVisibility, layout.getCoverView().getVisibility());
+        assertEquals(detailVisibility, layout.getDetailView().getVisibility());
+        assertEquals(layout.isFolded() ? 0 : 1, layout.getFoldFraction(), 0);
+    }
+}
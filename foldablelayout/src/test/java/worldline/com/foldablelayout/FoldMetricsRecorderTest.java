@@ -0,0 +1,59 @@
+package worldline.com.foldablelayout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FoldMetricsRecorderTest {
+
+    private static FoldMetrics createMetrics(boolean warm, long captureNanos, long... frameUpdateNanos) {
+        FoldMetrics metrics = new FoldMetrics();
+        metrics.setSnapshot(warm, captureNanos, warm ? 0 : 1024);
+        for (long updateNanos : frameUpdateNanos) {
+            metrics.addFrameUpdate(updateNanos);
+        }
+        metrics.addLateFrame(2);
+        metrics.setEnd(true, 1000);
+        return metrics;
+    }
+
+    @Test
+    public void metrics_areAggregated() throws Exception {
+        FoldMetricsRecorder recorder = new FoldMetricsRecorder();
+        recorder.onFoldMetrics(createMetrics(false, 300, 10, 20, 30));
+        recorder.onFoldMetrics(createMetrics(true, 100, 40));
+        assertEquals(2, recorder.getFoldCount());
+        assertEquals(1, recorder.getWarmSnapshotCount());
+        assertEquals(1024, recorder.getTotalBitmapAllocatedBytes());
+        assertEquals(200, recorder.getAverageSnapshotCaptureNanos());
+        assertEquals(300, recorder.getMaxSnapshotCaptureNanos());
+        assertEquals(4, recorder.getFrameCount());
+        assertEquals(25, recorder.getAverageFrameUpdateNanos());
+        assertEquals(40, recorder.getMaxFrameUpdateNanos());
+        assertEquals(2, recorder.getLateFrameCount());
+        assertEquals(4, recorder.getDroppedFrameCount());
+        assertEquals(1000, recorder.getAverageDurationNanos());
+    }
+
+    @Test
+    public void reset_forgetsAllFolds() throws Exception {
+        FoldMetricsRecorder recorder = new FoldMetricsRecorder();
+        recorder.onFoldMetrics(createMetrics(false, 300, 10));
+        recorder.reset();
+        assertEquals(0, recorder.getFoldCount());
+        assertEquals(0, recorder.getFrameCount());
+        assertEquals(0, recorder.getAverageFrameUpdateNanos());
+        assertEquals(0, recorder.getMaxSnapshotCaptureNanos());
+    }
+
+    @Test
+    public void copy_isIndependentFromTheReusedInstance() throws Exception {
+        FoldMetrics metrics = createMetrics(false, 300, 10);
+        FoldMetrics copy = new FoldMetrics(metrics);
+        metrics.reset();
+        assertEquals(300, copy.getSnapshotCaptureNanos());
+        assertEquals(1, copy.getFrameCount());
+        assertTrue(copy.isUnfolded());
+        assertEquals(0, metrics.getFrameCount());
+    }
+}
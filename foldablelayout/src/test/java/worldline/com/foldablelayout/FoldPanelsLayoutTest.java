@@ -0,0 +1,81 @@
+package worldline.com.foldablelayout;
+
+import android.widget.ImageView;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static worldline.com.foldablelayout.FoldTestLayouts.createLayout;
+import static worldline.com.foldablelayout.FoldTestLayouts.layout;
+
+/**
+ * Unfolds then folds layouts of several panels through all their stages, and checks the size of
+ * the layout and that no side of the snapshot is left displayed once at rest.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class FoldPanelsLayoutTest {
+
+    private static final int PANEL_SIZE = 120;
+
+    private static final int STEP_COUNT = 40;
+
+    @Test
+    public void evenPanels_landOnTheirSizes() throws Exception {
+        for (int panelCount = 2; panelCount <= 5; panelCount++) {
+            FoldableLayout layout = createLayout(PANEL_SIZE, PANEL_SIZE * panelCount);
+            layout.setPanelCount(panelCount);
+            assertFoldsLandOnSizes(layout, PANEL_SIZE, PANEL_SIZE * panelCount);
+        }
+    }
+
+    @Test
+    public void unevenPanels_landOnTheirSizes() throws Exception {
+        int[][] panelSizes = {
+                {100, 260},
+                {80, 120, 200},
+                {150, 40, 90, 300},
+                {60, 60, 200, 10, 130}
+        };
+        for (int[] sizes : panelSizes) {
+            int unfoldedSize = 0;
+            for (int size : sizes) {
+                unfoldedSize += size;
+            }
+            FoldableLayout layout = createLayout(PANEL_SIZE, unfoldedSize);
+            layout.setPanelSizes(sizes);
+            assertFoldsLandOnSizes(layout, sizes[0], unfoldedSize);
+        }
+    }
+
+    private static void assertFoldsLandOnSizes(FoldableLayout layout, int foldedSize, int unfoldedSize) {
+        layout(layout);
+        for (int step = 1; step <= STEP_COUNT; step++) {
+            layout.setFoldFraction((float) step / STEP_COUNT);
+            layout(layout);
+        }
+        assertRestState(layout, unfoldedSize);
+        for (int step = STEP_COUNT - 1; step >= 0; step--) {
+            layout.setFoldFraction((float) step / STEP_COUNT);
+            layout(layout);
+        }
+        assertRestState(layout, foldedSize);
+    }
+
+    private static void assertRestState(FoldableLayout layout, int size) {
+        assertEquals(size, layout.getLayoutParams().height);
+        assertEquals(size, layout.getMeasuredHeight());
+        assertCleared(layout.mImageViewBelow);
+        assertCleared(layout.mImageViewAbove);
+        assertCleared(layout.mImageViewAboveFront);
+    }
+
+    private static void assertCleared(ImageView imageView) {
+        assertNull(imageView.getBackground());
+        assertNull(imageView.getDrawable());
+    }
+}
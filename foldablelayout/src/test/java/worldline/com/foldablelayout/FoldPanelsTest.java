@@ -0,0 +1,61 @@
+package worldline.com.foldablelayout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FoldPanelsTest {
+
+    private static final int[][] PANELS = {
+            {100, 100},
+            {100, 100, 100},
+            {100, 100, 100, 100},
+            {80, 120, 60, 200, 40}
+    };
+
+    @Test
+    public void sizes_matchFoldedAndUnfoldedStates() throws Exception {
+        for (int[] sizes : PANELS) {
+            FoldPanels panels = new FoldPanels(sizes);
+            int total = 0;
+            for (int size : sizes) {
+                total += size;
+            }
+            assertEquals(sizes[0], panels.getFoldedSize());
+            assertEquals(total, panels.getUnfoldedSize());
+            assertEquals(sizes[0], panels.getSizeAt(0));
+            assertEquals(total, panels.getSizeAt(1));
+        }
+    }
+
+    @Test
+    public void stages_coverEveryPanelInOrder() throws Exception {
+        for (int[] sizes : PANELS) {
+            FoldPanels panels = new FoldPanels(sizes);
+            int previous = 1;
+            for (int i = 0; i <= 1000; i++) {
+                int stage = panels.getStage(i / 1000f);
+                assertTrue(stage == previous || stage == previous + 1);
+                previous = stage;
+            }
+            assertEquals(1, panels.getStage(0));
+            assertEquals(sizes.length - 1, panels.getStage(1));
+            assertEquals(0, panels.getStageProgress(0, 1), 1e-4);
+            assertEquals(1, panels.getStageProgress(1, sizes.length - 1), 1e-4);
+        }
+    }
+
+    @Test
+    public void twoPanels_followTheProgress() throws Exception {
+        FoldPanels panels = new FoldPanels(100, 100);
+        for (int i = 0; i <= 10; i++) {
+            assertEquals(i / 10f, panels.getStageProgress(i / 10f, 1), 1e-4);
+            assertEquals(100 + i * 10, panels.getSizeAt(i / 10f));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void singlePanel_isRejected() throws Exception {
+        new FoldPanels(100);
+    }
+}
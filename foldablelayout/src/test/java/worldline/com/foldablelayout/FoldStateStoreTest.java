@@ -0,0 +1,62 @@
+package worldline.com.foldablelayout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FoldStateStoreTest {
+
+    @Test
+    public void items_areFoldedByDefault() throws Exception {
+        FoldStateStore store = new FoldStateStore();
+        assertTrue(store.isFolded(0));
+        assertTrue(store.isFolded(Long.MAX_VALUE));
+        assertEquals(0, store.getUnfoldedCount());
+    }
+
+    @Test
+    public void states_areKeptPerId() throws Exception {
+        FoldStateStore store = new FoldStateStore();
+        // Enough ids to grow the store, in no particular order.
+        for (long id = 0; id < 100; id++) {
+            store.setFolded((id * 37) % 100, ((id * 37) % 100) % 3 != 0);
+        }
+        for (long id = 0; id < 100; id++) {
+            assertEquals(id % 3 != 0, store.isFolded(id));
+        }
+        assertEquals(34, store.getUnfoldedCount());
+    }
+
+    @Test
+    public void setFolded_isIdempotent() throws Exception {
+        FoldStateStore store = new FoldStateStore();
+        store.setFolded(42, false);
+        store.setFolded(42, false);
+        assertEquals(1, store.getUnfoldedCount());
+        store.setFolded(42, true);
+        store.setFolded(42, true);
+        assertEquals(0, store.getUnfoldedCount());
+        assertTrue(store.isFolded(42));
+    }
+
+    @Test
+    public void unfoldedIds_areSorted() throws Exception {
+        FoldStateStore store = new FoldStateStore();
+        store.setFolded(30, false);
+        store.setFolded(-2, false);
+        store.setFolded(7, false);
+        assertEquals(-2, store.getUnfoldedId(0));
+        assertEquals(7, store.getUnfoldedId(1));
+        assertEquals(30, store.getUnfoldedId(2));
+    }
+
+    @Test
+    public void clear_foldsAllItems() throws Exception {
+        FoldStateStore store = new FoldStateStore();
+        store.setFolded(-5, false);
+        store.setFolded(7, false);
+        store.clear();
+        assertTrue(store.isFolded(-5));
+        assertTrue(store.isFolded(7));
+    }
+}
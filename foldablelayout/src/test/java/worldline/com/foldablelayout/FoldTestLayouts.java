@@ -0,0 +1,51 @@
+package worldline.com.foldablelayout;
+
+import android.graphics.Bitmap;
+import android.view.View;
+import android.view.ViewGroup;
+
+import org.robolectric.RuntimeEnvironment;
+
+/**
+ * Layouts shared by the tests: a foldable layout of a fixed width capturing its detail view into
+ * bitmaps, laid out without any window.
+ */
+final class FoldTestLayouts {
+
+    static final int WIDTH = 480;
+    static final int COVER_HEIGHT = 160;
+
+    private FoldTestLayouts() {
+    }
+
+    /**
+     * @return a folded layout whose detail view is twice as high as its cover, laid out.
+     */
+    static FoldableLayout createLayout() {
+        return createLayout(COVER_HEIGHT, COVER_HEIGHT * 2);
+    }
+
+    /**
+     * @return a folded layout with a cover and a detail view of the given heights, laid out.
+     */
+    static FoldableLayout createLayout(int coverHeight, int detailHeight) {
+        FoldableLayout layout = new FoldableLayout(RuntimeEnvironment.application);
+        layout.setLayoutParams(new ViewGroup.LayoutParams(WIDTH, coverHeight));
+        layout.setSnapshotStrategy(new BitmapSnapshotStrategy(Bitmap.Config.ARGB_8888, 1));
+        View detail = new View(RuntimeEnvironment.application);
+        detail.setLayoutParams(new ViewGroup.LayoutParams(WIDTH, detailHeight));
+        layout.setupViews(new View(RuntimeEnvironment.application), detail, coverHeight);
+        layout(layout);
+        return layout;
+    }
+
+    /**
+     * Measure and lay out the layout at the size of its layout params, as its parent would.
+     */
+    static void layout(FoldableLayout layout) {
+        ViewGroup.LayoutParams layoutParams = layout.getLayoutParams();
+        layout.measure(View.MeasureSpec.makeMeasureSpec(layoutParams.width, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(layoutParams.height, View.MeasureSpec.EXACTLY));
+        layout.layout(0, 0, layout.getMeasuredWidth(), layout.getMeasuredHeight());
+    }
+}
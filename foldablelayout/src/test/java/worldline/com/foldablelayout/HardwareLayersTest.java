@@ -0,0 +1,107 @@
+package worldline.com.foldablelayout;
+
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricGradleTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Checks that the hardware layers are set for the duration of a fold only, and that the original
+ * layer types are restored however the fold ends.
+ */
+@RunWith(RobolectricGradleTestRunner.class)
+@Config(constants = BuildConfig.class, sdk = 21)
+public class HardwareLayersTest {
+
+    private FoldableLayout mLayout;
+
+    @Before
+    public void setUp() throws Exception {
+        mLayout = FoldTestLayouts.createLayout();
+    }
+
+    @Test
+    public void fold_setsLayersWhileRunning() throws Exception {
+        mLayout.setFoldFraction(0.5f);
+        assertLayerTypes(View.LAYER_TYPE_HARDWARE);
+        mLayout.setFoldFraction(1);
+        assertLayerTypes(View.LAYER_TYPE_NONE);
+    }
+
+    @Test
+    public void frames_leaveLayersUnchanged() throws Exception {
+        // Within a stage and a side, a frame only moves the layers and fades the shadows, whose
+        // views are outside of the layers: the layers are not redrawn.
+        mLayout.setFoldFraction(0.2f);
+        Object belowBackground = mLayout.mImageViewBelow.getBackground();
+        float shadowAlpha = mLayout.mImageViewBelowShadow.getAlpha();
+        mLayout.setFoldFraction(0.3f);
+        assertSame(belowBackground, mLayout.mImageViewBelow.getBackground());
+        assertNull(mLayout.mImageViewBelow.getDrawable());
+        assertEquals(1, mLayout.getCoverView().getAlpha(), 0);
+        assertNotEquals(shadowAlpha, mLayout.mImageViewBelowShadow.getAlpha(), 0);
+        assertEquals(mLayout.mImageViewBelowShadow.getAlpha(), mLayout.mImageViewAboveShadow.getAlpha(), 0);
+    }
+
+    @Test
+    public void cancelAnimation_restoresLayers() throws Exception {
+        mLayout.unfoldWithAnimation();
+        assertLayerTypes(View.LAYER_TYPE_HARDWARE);
+        mLayout.cancelAnimation();
+        assertLayerTypes(View.LAYER_TYPE_NONE);
+    }
+
+    @Test
+    public void endAnimation_restoresLayers() throws Exception {
+        mLayout.unfoldWithAnimation();
+        assertLayerTypes(View.LAYER_TYPE_HARDWARE);
+        mLayout.endAnimation();
+        assertLayerTypes(View.LAYER_TYPE_NONE);
+    }
+
+    @Test
+    public void foldFractionBackToZero_restoresLayers() throws Exception {
+        mLayout.setFoldFraction(0.5f);
+        mLayout.setFoldFraction(0);
+        assertLayerTypes(View.LAYER_TYPE_NONE);
+    }
+
+    @Test
+    public void reversedFold_restoresLayersOnce() throws Exception {
+        mLayout.unfoldWithAnimation();
+        mLayout.reverseAnimation();
+        assertLayerTypes(View.LAYER_TYPE_HARDWARE);
+        mLayout.endAnimation();
+        assertLayerTypes(View.LAYER_TYPE_NONE);
+    }
+
+    @Test
+    public void fold_restoresOriginalLayers() throws Exception {
+        mLayout.getCoverView().setLayerType(View.LAYER_TYPE_SOFTWARE, null);
+        mLayout.setFoldFraction(0.5f);
+        assertEquals(View.LAYER_TYPE_HARDWARE, mLayout.getCoverView().getLayerType());
+        mLayout.cancelAnimation();
+        assertEquals(View.LAYER_TYPE_SOFTWARE, mLayout.getCoverView().getLayerType());
+        assertEquals(View.LAYER_TYPE_NONE, mLayout.mImageViewBelow.getLayerType());
+    }
+
+    @Test
+    public void disabledLayers_areNotSet() throws Exception {
+        mLayout.setHardwareLayersEnabled(false);
+        mLayout.setFoldFraction(0.5f);
+        assertLayerTypes(View.LAYER_TYPE_NONE);
+    }
+
+    private void assertLayerTypes(int layerType) {
+        assertEquals(layerType, mLayout.getCoverView().getLayerType());
+        assertEquals(layerType, mLayout.mImageViewBelow.getLayerType());
+    }
+}
@@ -0,0 +1,47 @@
+package worldline.com.foldablelayout;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SpringInterpolatorTest {
+
+    private static final float[][] SPRINGS = {
+            {1500, 0.5f},
+            {1500, 1f},
+            {200, 2f},
+            {10000, 0.2f}
+    };
+
+    @Test
+    public void springs_startAtRestAndEndOnTarget() throws Exception {
+        for (float[] spring : SPRINGS) {
+            SpringInterpolator interpolator = new SpringInterpolator(spring[0], spring[1]);
+            assertEquals(0, interpolator.getInterpolation(0), 0);
+            assertEquals(1, interpolator.getInterpolation(1), 0);
+            assertEquals(1, interpolator.getInterpolation(0.999f), 0.01);
+        }
+    }
+
+    @Test
+    public void dampedSprings_doNotOvershoot() throws Exception {
+        SpringInterpolator interpolator = new SpringInterpolator(200, 2f);
+        float previous = 0;
+        for (int i = 1; i <= 100; i++) {
+            float value = interpolator.getInterpolation(i / 100f);
+            assertTrue(value >= previous);
+            assertTrue(value <= 1);
+            previous = value;
+        }
+    }
+
+    @Test
+    public void stifferSprings_settleFaster() throws Exception {
+        assertTrue(new SpringInterpolator(10000, 1f).getDuration() < new SpringInterpolator(100, 1f).getDuration());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidSpring_isRejected() throws Exception {
+        new SpringInterpolator(0, 1f);
+    }
+}